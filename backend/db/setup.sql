@@ -2,6 +2,13 @@ DROP TABLE IF EXISTS city CASCADE;
 DROP TABLE IF EXISTS coordinates CASCADE;
 DROP TABLE IF EXISTS human CASCADE;
 DROP TABLE IF EXISTS import_operation CASCADE;
+DROP TABLE IF EXISTS city_import_stage;
+DROP SEQUENCE IF EXISTS city_id_seq;
+DROP SEQUENCE IF EXISTS coordinates_id_seq;
+DROP SEQUENCE IF EXISTS human_id_seq;
+DROP SEQUENCE IF EXISTS import_operation_id_seq;
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
 
 DO
 $$
@@ -24,22 +31,31 @@ CREATE TYPE government AS ENUM
 
 
 
+-- ids come from sequences stepping by 50 (Hibernate pooled-lo, allocationSize = 50),
+-- so inserts can be JDBC-batched; plain INSERTs without id still work via DEFAULT nextval
+CREATE SEQUENCE coordinates_id_seq INCREMENT BY 50;
+CREATE SEQUENCE human_id_seq INCREMENT BY 50;
+CREATE SEQUENCE city_id_seq INCREMENT BY 50;
+CREATE SEQUENCE import_operation_id_seq INCREMENT BY 50;
+
 CREATE TABLE coordinates
 (
-    id BIGSERIAL PRIMARY KEY,
+    id BIGINT PRIMARY KEY DEFAULT nextval('coordinates_id_seq'),
     x  REAL NOT NULL CHECK (x <= 460),
-    y  REAL NOT NULL
+    y  REAL NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0
 );
 
 CREATE TABLE human
 (
-    id     BIGSERIAL PRIMARY KEY,
-    height REAL NOT NULL CHECK (height > 0)
+    id BIGINT PRIMARY KEY DEFAULT nextval('human_id_seq'),
+    height REAL NOT NULL CHECK (height > 0),
+    version BIGINT NOT NULL DEFAULT 0
 );
 
 CREATE TABLE city
 (
-    id                     BIGSERIAL PRIMARY KEY,
+    id BIGINT PRIMARY KEY DEFAULT nextval('city_id_seq'),
 
     name                   VARCHAR(255) NOT NULL,
     CONSTRAINT city_name_not_blank CHECK (length(btrim(name)) > 0),
@@ -61,6 +77,8 @@ CREATE TABLE city
     coordinates_id         BIGINT    NOT NULL,
     governor_id            BIGINT,
 
+    version                BIGINT       NOT NULL DEFAULT 0,
+
     CONSTRAINT fk_city_coordinates
         FOREIGN KEY (coordinates_id)
             REFERENCES coordinates(id)
@@ -73,7 +91,7 @@ CREATE TABLE city
 );
 
 CREATE TABLE import_operation (
-                                  id BIGSERIAL PRIMARY KEY,
+                                  id BIGINT PRIMARY KEY DEFAULT nextval('import_operation_id_seq'),
                                   tx_id VARCHAR(64) NOT NULL UNIQUE,
                                   started_at TIMESTAMP NOT NULL DEFAULT now(),
                                   finished_at TIMESTAMP,
@@ -83,11 +101,53 @@ CREATE TABLE import_operation (
                                   source_filename TEXT,
                                   file_bucket VARCHAR(255),
                                   file_staging_key TEXT,
-                                  file_final_key TEXT
+                                  file_final_key TEXT,
+                                  chunked BOOLEAN NOT NULL DEFAULT FALSE,
+                                  committed_offset INTEGER NOT NULL DEFAULT 0,
+                                  total_count INTEGER,
+                                  validation_errors TEXT
+);
+
+-- Template of the bulk import stage (import.engine=copy). Every importing transaction COPYs into
+-- its own TEMP TABLE ... (LIKE city_import_stage) ON COMMIT DROP; this table itself stays empty.
+CREATE UNLOGGED TABLE city_import_stage
+(
+    rn                     INTEGER NOT NULL,
+    name                   TEXT    NOT NULL,
+    area                   INTEGER NOT NULL,
+    population             BIGINT  NOT NULL,
+    establishment_date     DATE,
+    capital                BOOLEAN NOT NULL,
+    meters_above_sea_level INTEGER,
+    telephone_code         INTEGER,
+    climate                TEXT    NOT NULL,
+    government             TEXT,
+    coordinates_id         BIGINT,
+    x                      REAL,
+    y                      REAL,
+    governor_id            BIGINT,
+    governor_height        REAL,
+    city_id                BIGINT
 );
 
 
+ALTER SEQUENCE coordinates_id_seq OWNED BY coordinates.id;
+ALTER SEQUENCE human_id_seq OWNED BY human.id;
+ALTER SEQUENCE city_id_seq OWNED BY city.id;
+ALTER SEQUENCE import_operation_id_seq OWNED BY import_operation.id;
+
+-- one row per (x, y); CoordinatesService.findOrCreate upserts against it (ON CONFLICT)
+CREATE UNIQUE INDEX uq_coordinates_xy ON coordinates (x, y);
 CREATE INDEX idx_city_name         ON city (name);
+-- case-insensitive name uniqueness; reported as CITY_NAME_NOT_UNIQUE (see DbConstraints)
+CREATE UNIQUE INDEX uq_city_name_lower ON city (lower(name));
+CREATE INDEX idx_city_name_trgm    ON city USING gin (lower(name) gin_trgm_ops);
+CREATE INDEX idx_city_area_id      ON city (area DESC, id);
+CREATE INDEX idx_city_establishment_date ON city (establishment_date, id) WHERE establishment_date IS NOT NULL;
+CREATE INDEX idx_city_meters_above_sea_level ON city (meters_above_sea_level);
+CREATE INDEX idx_city_telephone_code ON city (telephone_code);
+CREATE INDEX idx_city_population   ON city (population);
+CREATE INDEX idx_city_creation_date_brin ON city USING brin (creation_date);
 CREATE INDEX idx_city_climate      ON city (climate);
 CREATE INDEX idx_city_government   ON city (government);
 CREATE INDEX idx_city_coordinates  ON city (coordinates_id);
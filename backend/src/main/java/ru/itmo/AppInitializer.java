@@ -7,6 +7,9 @@ import ru.itmo.config.JpaConfig;
 import ru.itmo.config.WebConfig;
 
 public class AppInitializer extends AbstractAnnotationConfigDispatcherServletInitializer {
+
+    private static final long MAX_UPLOAD_BYTES = 1024L * 1024 * 1024;
+
     @Override
     protected Class<?>[] getRootConfigClasses() {
         return new Class[]{JpaConfig.class};
@@ -24,10 +27,11 @@ public class AppInitializer extends AbstractAnnotationConfigDispatcherServletIni
 
     @Override
     protected void customizeRegistration(ServletRegistration.Dynamic registration) {
+        // parts are written to disk right away (threshold 0) and imports stream from there
         MultipartConfigElement multipartConfig = new MultipartConfigElement(
                 null,
-                10 * 1024 * 1024,
-                20 * 1024 * 1024,
+                MAX_UPLOAD_BYTES,
+                MAX_UPLOAD_BYTES + 1024 * 1024,
                 0
         );
         registration.setMultipartConfig(multipartConfig);
@@ -0,0 +1,34 @@
+package ru.itmo.analytics;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/analytics")
+public class CityAnalyticsAdminController {
+
+    private final CityAnalyticsSnapshot snapshot;
+
+    public CityAnalyticsAdminController(CityAnalyticsSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    @GetMapping("/snapshot")
+    public Map<String, Object> stats() {
+        return snapshot.stats();
+    }
+
+    @PostMapping("/snapshot/rebuild")
+    public Map<String, Object> rebuild() {
+        return snapshot.rebuild();
+    }
+
+    @GetMapping("/snapshot/verify")
+    public Map<String, Object> verify() {
+        return snapshot.verify();
+    }
+}
@@ -0,0 +1,34 @@
+package ru.itmo.analytics;
+
+import ru.itmo.domain.City;
+import ru.itmo.domain.Coordinates;
+
+import java.util.Date;
+
+public record CityAnalyticsRow(
+        Long id,
+        String name,
+        Integer telephoneCode,
+        Integer metersAboveSeaLevel,
+        Integer area,
+        Date establishmentDate,
+        Long coordinatesId,
+        Float x,
+        Float y
+) {
+
+    public static CityAnalyticsRow fromEntity(City c) {
+        Coordinates co = c.getCoordinates();
+        return new CityAnalyticsRow(
+                c.getId(),
+                c.getName(),
+                c.getTelephoneCode(),
+                c.getMetersAboveSeaLevel(),
+                c.getArea(),
+                c.getEstablishmentDate(),
+                co != null ? co.getId() : null,
+                co != null ? co.getX() : null,
+                co != null ? co.getY() : null
+        );
+    }
+}
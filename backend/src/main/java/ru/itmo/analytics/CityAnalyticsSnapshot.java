@@ -0,0 +1,383 @@
+package ru.itmo.analytics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.itmo.domain.City;
+import ru.itmo.repository.CityRepository;
+
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * In-memory view of the city analytics, seeded from the database once and then kept
+ * up to date from the after-commit hooks of the city/coordinates write paths.
+ * Reads never touch PostgreSQL: averages are O(1), extremes and prefix lookups O(log n).
+ */
+@Component
+public class CityAnalyticsSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(CityAnalyticsSnapshot.class);
+
+    private static final Comparator<CityAnalyticsRow> LARGEST_AREA_FIRST = Comparator
+            .comparing(CityAnalyticsRow::area, Comparator.reverseOrder())
+            .thenComparing(CityAnalyticsRow::id);
+
+    private static final Comparator<CityAnalyticsRow> OLDEST_FIRST = Comparator
+            .comparing(CityAnalyticsRow::establishmentDate)
+            .thenComparing(CityAnalyticsRow::id);
+
+    private final CityRepository cityRepo;
+    private final PlatformTransactionManager txManager;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object rebuildMonitor = new Object();
+    private final AtomicBoolean seedAttempted = new AtomicBoolean(false);
+
+    private State state;
+    private List<Consumer<State>> pendingDuringRebuild;
+    private OffsetDateTime rebuiltAt;
+
+    public CityAnalyticsSnapshot(CityRepository cityRepo, PlatformTransactionManager txManager) {
+        this.cityRepo = cityRepo;
+        this.txManager = txManager;
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void seedOnStartup() {
+        if (!seedAttempted.compareAndSet(false, true)) return;
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("City analytics snapshot was not seeded on startup, will retry on first read: {}", e.getMessage());
+        }
+    }
+
+    public double averageTelephoneCode() {
+        return read(s -> s.telephoneCount == 0 ? 0.0d : (double) s.telephoneSum / s.telephoneCount);
+    }
+
+    public List<Integer> uniqueMetersAboveSeaLevel() {
+        return read(s -> List.copyOf(s.meters.keySet()));
+    }
+
+    /**
+     * Returns up to {@code limit} city ids whose name starts with {@code prefix}, in name
+     * order, continuing strictly after {@code afterName} when it is given.
+     */
+    public List<Map.Entry<String, Long>> namesByPrefix(String prefix, String afterName, int limit) {
+        String p = prefix == null ? "" : prefix;
+        return read(s -> {
+            NavigableMap<String, Long> view = prefixView(s.names, p);
+            if (afterName != null) {
+                view = view.tailMap(afterName, false);
+            }
+            List<Map.Entry<String, Long>> out = new ArrayList<>();
+            for (Map.Entry<String, Long> e : view.entrySet()) {
+                if (out.size() == limit) break;
+                out.add(Map.entry(e.getKey(), e.getValue()));
+            }
+            return out;
+        });
+    }
+
+    public double distanceToLargestAreaCity(double fromX, double fromY) {
+        return read(s -> {
+            if (s.byArea.isEmpty()) throw new NoSuchElementException("Нет городов с заполненным area");
+            Point p = s.coordinates.get(s.byArea.first().coordinatesId());
+            if (p == null) throw new NoSuchElementException("У города с max area отсутствуют координаты");
+
+            double dx = p.x - fromX;
+            double dy = p.y - fromY;
+            return Math.sqrt(dx * dx + dy * dy);
+        });
+    }
+
+    public double distanceFromOriginToOldestCity() {
+        return read(s -> {
+            if (s.byEstablishment.isEmpty()) throw new NoSuchElementException("Нет городов с establishmentDate");
+            Point p = s.coordinates.get(s.byEstablishment.first().coordinatesId());
+            if (p == null) throw new NoSuchElementException("У самого старого города отсутствуют координаты");
+
+            double x = p.x;
+            double y = p.y;
+            return Math.sqrt(x * x + y * y);
+        });
+    }
+
+    public void onCitySaved(CityAnalyticsRow row) {
+        apply(s -> s.put(row));
+    }
+
+    public void onCitiesSaved(Collection<CityAnalyticsRow> rows) {
+        if (rows.isEmpty()) return;
+        apply(s -> rows.forEach(s::put));
+    }
+
+    public void onCityDeleted(Long cityId) {
+        apply(s -> s.remove(cityId));
+    }
+
+    public void onCitiesDeleted(Collection<Long> cityIds) {
+        if (cityIds.isEmpty()) return;
+        apply(s -> cityIds.forEach(s::remove));
+    }
+
+    public void onCoordinatesSaved(Long coordinatesId, float x, Float y) {
+        apply(s -> s.moveCoordinates(coordinatesId, x, y != null ? y : 0f));
+    }
+
+    public void reset() {
+        lock.writeLock().lock();
+        try {
+            state = new State();
+            if (pendingDuringRebuild != null) pendingDuringRebuild.add(State::clear);
+            rebuiltAt = OffsetDateTime.now();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reloads the snapshot from the database. Changes committed while the reload is
+     * running are buffered and replayed on top of the fresh state; every change
+     * carries the full row, so replaying one already seen by the reload is harmless.
+     */
+    public Map<String, Object> rebuild() {
+        synchronized (rebuildMonitor) {
+            long started = System.nanoTime();
+
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            State fresh;
+            try {
+                fresh = load();
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    pendingDuringRebuild = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+
+            lock.writeLock().lock();
+            try {
+                for (Consumer<State> change : pendingDuringRebuild) {
+                    change.accept(fresh);
+                }
+                pendingDuringRebuild = null;
+                state = fresh;
+                rebuiltAt = OffsetDateTime.now();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Map<String, Object> response = stats();
+            response.put("rebuildMillis", (System.nanoTime() - started) / 1_000_000);
+            return response;
+        }
+    }
+
+    public Map<String, Object> stats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("seeded", state != null);
+            response.put("cities", state != null ? state.cities.size() : 0);
+            response.put("distinctMetersAboveSeaLevel", state != null ? state.meters.size() : 0);
+            response.put("rebuiltAt", rebuiltAt != null ? rebuiltAt.toString() : null);
+            return response;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> verify() {
+        TransactionTemplate tt = new TransactionTemplate(txManager);
+        tt.setReadOnly(true);
+
+        Map<String, Object> checks = new LinkedHashMap<>();
+        tt.executeWithoutResult(status -> {
+            Double avg = cityRepo.averageTelephoneCode();
+            checks.put("cityCount", check(read(s -> (long) s.cities.size()), cityRepo.count()));
+            checks.put("averageTelephoneCode", checkDouble(averageTelephoneCode(), avg != null ? avg : 0.0d));
+            checks.put("uniqueMetersAboveSeaLevel",
+                    check(uniqueMetersAboveSeaLevel(), cityRepo.findDistinctMetersAboveSeaLevel()));
+            checks.put("largestAreaCityId", check(
+                    read(s -> s.byArea.isEmpty() ? null : s.byArea.first().id()),
+                    cityRepo.findFirstByOrderByAreaDescIdAsc().map(City::getId).orElse(null)));
+            checks.put("oldestCityId", check(
+                    read(s -> s.byEstablishment.isEmpty() ? null : s.byEstablishment.first().id()),
+                    cityRepo.findFirstByEstablishmentDateNotNullOrderByEstablishmentDateAscIdAsc()
+                            .map(City::getId).orElse(null)));
+        });
+
+        boolean consistent = checks.values().stream()
+                .allMatch(c -> Boolean.TRUE.equals(((Map<?, ?>) c).get("match")));
+
+        Map<String, Object> response = stats();
+        response.put("consistent", consistent);
+        response.put("checks", checks);
+        return response;
+    }
+
+    private State load() {
+        TransactionTemplate tt = new TransactionTemplate(txManager);
+        tt.setReadOnly(true);
+        return tt.execute(status -> {
+            State s = new State();
+            try (Stream<CityAnalyticsRow> rows = cityRepo.streamAnalyticsRows()) {
+                rows.forEach(s::put);
+            }
+            return s;
+        });
+    }
+
+    private <T> T read(Function<State, T> query) {
+        lock.readLock().lock();
+        try {
+            if (state != null) return query.apply(state);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        rebuild();
+
+        lock.readLock().lock();
+        try {
+            return query.apply(state);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(Consumer<State> change) {
+        lock.writeLock().lock();
+        try {
+            if (state != null) change.accept(state);
+            if (pendingDuringRebuild != null) pendingDuringRebuild.add(change);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static <V> NavigableMap<String, V> prefixView(NavigableMap<String, V> map, String prefix) {
+        if (prefix.isEmpty()) return map;
+        char last = prefix.charAt(prefix.length() - 1);
+        if (last == Character.MAX_VALUE) return map.tailMap(prefix, true);
+        String upper = prefix.substring(0, prefix.length() - 1) + (char) (last + 1);
+        return map.subMap(prefix, true, upper, false);
+    }
+
+    private static Map<String, Object> check(Object snapshot, Object database) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("snapshot", snapshot);
+        m.put("database", database);
+        m.put("match", Objects.equals(snapshot, database));
+        return m;
+    }
+
+    private static Map<String, Object> checkDouble(double snapshot, double database) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("snapshot", snapshot);
+        m.put("database", database);
+        m.put("match", Math.abs(snapshot - database) < 1e-9);
+        return m;
+    }
+
+    private static final class Point {
+        private float x;
+        private float y;
+        private int refs;
+
+        private Point(float x, float y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    private static final class State {
+        private final Map<Long, CityAnalyticsRow> cities = new HashMap<>();
+        private final Map<Long, Point> coordinates = new HashMap<>();
+        private final NavigableMap<String, Long> names = new TreeMap<>();
+        private final TreeMap<Integer, Integer> meters = new TreeMap<>();
+        private final TreeSet<CityAnalyticsRow> byArea = new TreeSet<>(LARGEST_AREA_FIRST);
+        private final TreeSet<CityAnalyticsRow> byEstablishment = new TreeSet<>(OLDEST_FIRST);
+        private long telephoneSum;
+        private long telephoneCount;
+
+        private void put(CityAnalyticsRow row) {
+            remove(row.id());
+
+            cities.put(row.id(), row);
+            if (row.name() != null) names.put(row.name(), row.id());
+            if (row.telephoneCode() != null) {
+                telephoneSum += row.telephoneCode();
+                telephoneCount++;
+            }
+            if (row.metersAboveSeaLevel() != null) meters.merge(row.metersAboveSeaLevel(), 1, Integer::sum);
+            if (row.area() != null) byArea.add(row);
+            if (row.establishmentDate() != null) byEstablishment.add(row);
+            if (row.coordinatesId() != null) {
+                Point p = coordinates.computeIfAbsent(row.coordinatesId(), k -> new Point(0f, 0f));
+                p.x = row.x() != null ? row.x() : 0f;
+                p.y = row.y() != null ? row.y() : 0f;
+                p.refs++;
+            }
+        }
+
+        private void remove(Long cityId) {
+            CityAnalyticsRow old = cities.remove(cityId);
+            if (old == null) return;
+
+            if (old.name() != null) names.remove(old.name(), old.id());
+            if (old.telephoneCode() != null) {
+                telephoneSum -= old.telephoneCode();
+                telephoneCount--;
+            }
+            if (old.metersAboveSeaLevel() != null) {
+                meters.computeIfPresent(old.metersAboveSeaLevel(), (k, n) -> n > 1 ? n - 1 : null);
+            }
+            if (old.area() != null) byArea.remove(old);
+            if (old.establishmentDate() != null) byEstablishment.remove(old);
+            if (old.coordinatesId() != null) {
+                Point p = coordinates.get(old.coordinatesId());
+                if (p != null && --p.refs <= 0) coordinates.remove(old.coordinatesId());
+            }
+        }
+
+        private void moveCoordinates(Long coordinatesId, float x, float y) {
+            Point p = coordinates.get(coordinatesId);
+            if (p == null) return;
+            p.x = x;
+            p.y = y;
+        }
+
+        private void clear() {
+            cities.clear();
+            coordinates.clear();
+            names.clear();
+            meters.clear();
+            byArea.clear();
+            byEstablishment.clear();
+            telephoneSum = 0;
+            telephoneCount = 0;
+        }
+    }
+}
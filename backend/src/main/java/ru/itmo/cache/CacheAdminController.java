@@ -18,10 +18,14 @@ public class CacheAdminController {
 
     private final L2CacheStatsLoggingSwitch loggingSwitch;
     private final EntityManagerFactory emf;
+    private final CityCountCache cityCountCache;
 
-    public CacheAdminController(L2CacheStatsLoggingSwitch loggingSwitch, EntityManagerFactory emf) {
+    public CacheAdminController(L2CacheStatsLoggingSwitch loggingSwitch,
+                                EntityManagerFactory emf,
+                                CityCountCache cityCountCache) {
         this.loggingSwitch = loggingSwitch;
         this.emf = emf;
+        this.cityCountCache = cityCountCache;
     }
 
     @PostMapping("/l2-stats-logging")
@@ -58,4 +62,15 @@ public class CacheAdminController {
         response.put("status", "ok");
         return response;
     }
+
+    @GetMapping("/city-count")
+    public Map<String, Object> cityCountStats() {
+        return cityCountCache.stats();
+    }
+
+    @PostMapping("/city-count/invalidate")
+    public Map<String, Object> invalidateCityCount() {
+        cityCountCache.invalidateAll();
+        return cityCountCache.stats();
+    }
 }
@@ -0,0 +1,144 @@
+package ru.itmo.cache;
+
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import ru.itmo.dto.PageRequestDto;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Caches COUNT(*) results of filtered city pages keyed by the normalized filter.
+ * Every committed City write bumps the generation and drops all entries; a count
+ * computed across a write is not stored, so a stale total cannot be cached.
+ */
+@Component
+public class CityCountCache {
+
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final Map<String, Entry> entries;
+
+    public CityCountCache(Environment env) {
+        this.maxEntries = Integer.parseInt(env.getProperty("cache.cityCount.maxEntries", "1000"));
+        this.ttlMillis = Long.parseLong(env.getProperty("cache.cityCount.ttlMillis", "60000"));
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > CityCountCache.this.maxEntries;
+            }
+        };
+    }
+
+    public long get(PageRequestDto rq, LongSupplier counter) {
+        String key = keyOf(rq);
+        long now = System.currentTimeMillis();
+
+        synchronized (entries) {
+            Entry e = entries.get(key);
+            if (e != null && e.expiresAt > now) {
+                hits.incrementAndGet();
+                return e.count;
+            }
+        }
+
+        misses.incrementAndGet();
+        long gen = generation.get();
+        long count = counter.getAsLong();
+
+        synchronized (entries) {
+            if (generation.get() == gen) {
+                entries.put(key, new Entry(count, now + ttlMillis));
+            }
+        }
+        return count;
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        synchronized (entries) {
+            m.put("entries", entries.size());
+        }
+        m.put("maxEntries", maxEntries);
+        m.put("ttlMillis", ttlMillis);
+        m.put("hits", hits.get());
+        m.put("misses", misses.get());
+        m.put("generation", generation.get());
+        return m;
+    }
+
+    public boolean isUnfiltered(PageRequestDto rq) {
+        return "{}".equals(keyOf(rq));
+    }
+
+    static String keyOf(PageRequestDto rq) {
+        Map<String, Object> f = new TreeMap<>();
+        put(f, "id", rq.getId());
+        put(f, "name", rq.getName() == null || rq.getName().isBlank() ? null : rq.getName().toLowerCase(Locale.ROOT));
+        put(f, "fuzzy", Boolean.TRUE.equals(rq.getFuzzy()) ? Boolean.TRUE : null);
+        put(f, "climate", upper(rq.getClimate()));
+        put(f, "government", upper(rq.getGovernment()));
+        put(f, "population", rq.getPopulation());
+        put(f, "telephoneCode", rq.getTelephoneCode());
+        put(f, "capital", rq.getCapital());
+        put(f, "area", rq.getArea());
+        put(f, "metersAboveSeaLevel", rq.getMetersAboveSeaLevel());
+        put(f, "coordinatesId", rq.getCoordinatesId());
+        put(f, "governorId", rq.getGovernorId());
+        put(f, "governorIdIsNull", rq.getGovernorIdIsNull());
+        put(f, "creationDate", rq.getCreationDate());
+        put(f, "establishmentDate", rq.getEstablishmentDate());
+        put(f, "climateIn", upperSorted(rq.getClimateIn()));
+        put(f, "governmentIn", upperSorted(rq.getGovernmentIn()));
+        put(f, "populationMin", rq.getPopulationMin());
+        put(f, "populationMax", rq.getPopulationMax());
+        put(f, "areaMin", rq.getAreaMin());
+        put(f, "areaMax", rq.getAreaMax());
+        put(f, "telephoneCodeMin", rq.getTelephoneCodeMin());
+        put(f, "telephoneCodeMax", rq.getTelephoneCodeMax());
+        put(f, "metersAboveSeaLevelMin", rq.getMetersAboveSeaLevelMin());
+        put(f, "metersAboveSeaLevelMax", rq.getMetersAboveSeaLevelMax());
+        put(f, "creationDateFrom", rq.getCreationDateFrom());
+        put(f, "creationDateTo", rq.getCreationDateTo());
+        put(f, "establishmentDateFrom", rq.getEstablishmentDateFrom());
+        put(f, "establishmentDateTo", rq.getEstablishmentDateTo());
+        return f.toString();
+    }
+
+    private static void put(Map<String, Object> f, String key, Object value) {
+        if (value != null) f.put(key, value);
+    }
+
+    private static String upper(String v) {
+        return v == null || v.isBlank() ? null : v.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static TreeSet<String> upperSorted(List<String> values) {
+        if (values == null) return null;
+        TreeSet<String> out = new TreeSet<>();
+        for (String v : values) {
+            String u = upper(v);
+            if (u != null) out.add(u);
+        }
+        return out.isEmpty() ? null : out;
+    }
+
+    private record Entry(long count, long expiresAt) {}
+}
@@ -60,6 +60,10 @@ public class JpaConfig {
         ds.setRemoveAbandonedTimeout(intProp("db.pool.removeAbandonedTimeout", 60));
         ds.setLogAbandoned(boolProp("db.pool.logAbandoned", false));
 
+        // lets pgjdbc collapse a JDBC insert batch into multi-row INSERTs
+        ds.addConnectionProperty("reWriteBatchedInserts",
+                String.valueOf(boolProp("db.jdbc.reWriteBatchedInserts", true)));
+
         return ds;
     }
 
@@ -111,6 +115,14 @@ public class JpaConfig {
         jpa.put("hibernate.format_sql", "true");
         jpa.put("hibernate.jdbc.lob.non_contextual_creation", "true");
 
+        // JDBC batching; requires sequence ids (IDENTITY forces one round trip per insert)
+        jpa.put("hibernate.jdbc.batch_size", String.valueOf(intProp("db.jdbc.batchSize", 50)));
+        jpa.put("hibernate.order_inserts", "true");
+        jpa.put("hibernate.order_updates", "true");
+        jpa.put("hibernate.jdbc.batch_versioned_data", "true");
+        // sequence value is the low end of the block, so DEFAULT nextval inserts cannot collide
+        jpa.put("hibernate.id.optimizer.pooled.preferred", "pooled-lo");
+
         // Hibernate L2 cache via JCache (Ehcache)
         jpa.put("hibernate.cache.use_second_level_cache", "true");
         jpa.put("hibernate.cache.region.factory_class", "jcache");
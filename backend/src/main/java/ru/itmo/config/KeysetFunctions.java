@@ -0,0 +1,26 @@
+package ru.itmo.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.BasicTypeRegistry;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Row-value comparisons for keyset pagination, which JPA Criteria cannot express.
+ * Picked up by Hibernate through META-INF/services/org.hibernate.boot.model.FunctionContributor.
+ */
+public class KeysetFunctions implements FunctionContributor {
+
+    /** {@code row_after(k1, k2, v1, v2)} renders as {@code (k1, k2) > (v1, v2)}, an index condition on (k1, k2). */
+    public static final String ROW_AFTER = "row_after";
+
+    /** {@code row_before(k1, k2, v1, v2)} renders as {@code (k1, k2) < (v1, v2)}. */
+    public static final String ROW_BEFORE = "row_before";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functions) {
+        BasicTypeRegistry types = functions.getTypeConfiguration().getBasicTypeRegistry();
+        functions.getFunctionRegistry().registerPattern(ROW_AFTER, "((?1, ?2) > (?3, ?4))", types.resolve(StandardBasicTypes.BOOLEAN));
+        functions.getFunctionRegistry().registerPattern(ROW_BEFORE, "((?1, ?2) < (?3, ?4))", types.resolve(StandardBasicTypes.BOOLEAN));
+    }
+}
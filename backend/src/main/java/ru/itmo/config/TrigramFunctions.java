@@ -0,0 +1,26 @@
+package ru.itmo.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.BasicTypeRegistry;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Registers pg_trgm operators for HQL/Criteria. Picked up by Hibernate through
+ * META-INF/services/org.hibernate.boot.model.FunctionContributor.
+ */
+public class TrigramFunctions implements FunctionContributor {
+
+    /** {@code trgm_match(a, b)} renders as {@code a % b}, which the GIN trigram index can serve. */
+    public static final String MATCH = "trgm_match";
+
+    /** {@code similarity(a, b)} from pg_trgm, in 0..1. */
+    public static final String SIMILARITY = "similarity";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functions) {
+        BasicTypeRegistry types = functions.getTypeConfiguration().getBasicTypeRegistry();
+        functions.getFunctionRegistry().registerPattern(MATCH, "(?1 % ?2)", types.resolve(StandardBasicTypes.BOOLEAN));
+        functions.getFunctionRegistry().registerPattern(SIMILARITY, "similarity(?1, ?2)", types.resolve(StandardBasicTypes.FLOAT));
+    }
+}
@@ -1,7 +1,7 @@
 package ru.itmo.controller;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -13,15 +13,18 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import ru.itmo.dto.CityDto;
-import ru.itmo.dto.ImportResultDto;
+import ru.itmo.dto.ImportOperationDto;
 import ru.itmo.dto.MinioStoredFileDto;
 import ru.itmo.service.CityImportService;
+import ru.itmo.service.ImportJobQueue;
 import ru.itmo.storage.ImportFileStorageService;
-import ru.itmo.storage.StoredImportFile;
+import ru.itmo.storage.StoredImportStream;
 
 import java.io.IOException;
+import java.net.URI;
 import java.net.URLEncoder;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Locale;
@@ -32,14 +35,14 @@ public class AdminStorageController {
 
     private final ImportFileStorageService fileStorageService;
     private final CityImportService cityImportService;
-    private final ObjectMapper objectMapper;
+    private final ImportJobQueue jobQueue;
 
     public AdminStorageController(ImportFileStorageService fileStorageService,
                                   CityImportService cityImportService,
-                                  ObjectMapper objectMapper) {
+                                  ImportJobQueue jobQueue) {
         this.fileStorageService = fileStorageService;
         this.cityImportService = cityImportService;
-        this.objectMapper = objectMapper;
+        this.jobQueue = jobQueue;
     }
 
     @GetMapping(value = "/files", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -56,40 +59,57 @@ public class AdminStorageController {
     }
 
     @GetMapping("/file")
-    public ResponseEntity<byte[]> downloadByKey(@RequestParam("key") String key) {
+    public ResponseEntity<Resource> downloadByKey(@RequestParam("key") String key) {
         if (key == null || key.isBlank()) {
             throw new IllegalArgumentException("Параметр key обязателен");
         }
 
-        StoredImportFile file = fileStorageService.download(key);
+        StoredImportStream file = fileStorageService.openDownload(key);
         String filename = fileNameFromKey(key);
         String encoded = URLEncoder.encode(filename, StandardCharsets.UTF_8).replace("+", "%20");
 
-        return ResponseEntity.ok()
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename*=UTF-8''" + encoded)
-                .contentType(MediaType.parseMediaType(file.getContentType()))
-                .contentLength(file.getBytes().length)
-                .body(file.getBytes());
+                .contentType(MediaType.parseMediaType(file.getContentType()));
+        if (file.getSizeBytes() >= 0) {
+            response.contentLength(file.getSizeBytes());
+        }
+        return response.body(new InputStreamResource(file.getContent()));
     }
 
+    /** Queued like an upload: 202 with the operation, see {@code GET /api/imports/{id}}. */
     @PostMapping(value = "/reimport", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ImportResultDto reimportStoredFile(@RequestParam("key") String key,
-                                              @RequestParam(name = "debugFailStage", required = false) String debugFailStage) {
+    public ResponseEntity<ImportOperationDto> reimportStoredFile(@RequestParam("key") String key,
+                                                                 @RequestParam(name = "debugFailStage", required = false) String debugFailStage) {
         if (key == null || key.isBlank()) {
             throw new IllegalArgumentException("Параметр key обязателен");
         }
 
-        StoredImportFile file = fileStorageService.download(key);
-        byte[] bytes = file.getBytes();
-        if (bytes == null || bytes.length == 0) {
+        // spooled to disk: the import reads the file several times; the job deletes it
+        Path spooled = fileStorageService.downloadToTempFile(key, jobQueue.spoolDir());
+        long size;
+        try {
+            size = Files.size(spooled);
+        } catch (IOException e) {
+            deleteQuietly(spooled);
+            throw new IllegalStateException("Ошибка чтения временного файла: " + e.getMessage(), e);
+        }
+        if (size == 0) {
+            deleteQuietly(spooled);
             throw new IllegalArgumentException("Файл в MinIO пустой");
         }
 
+        ImportOperationDto op = ImportOperationDto.fromEntity(
+                cityImportService.submitImport(spooled, fileNameFromKey(key), debugFailStage, null));
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/imports/" + op.getId()))
+                .body(op);
+    }
+
+    private static void deleteQuietly(Path path) {
         try {
-            var dtos = objectMapper.readValue(bytes, new TypeReference<List<CityDto>>() {});
-            return cityImportService.importCities(dtos, bytes, fileNameFromKey(key), debugFailStage);
-        } catch (IOException e) {
-            throw new IllegalArgumentException("Некорректный JSON в файле MinIO: " + e.getMessage());
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
         }
     }
 
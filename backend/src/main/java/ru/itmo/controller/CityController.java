@@ -1,31 +1,37 @@
 package ru.itmo.controller;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import ru.itmo.dto.*;
 import ru.itmo.service.CityImportService;
 import ru.itmo.service.CityService;
+import ru.itmo.service.ImportJobQueue;
 
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 
 @RestController
 @RequestMapping(value = "/api/cities", produces = MediaType.APPLICATION_JSON_VALUE)
 public class CityController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final CityService service;
     private final CityImportService importService;
-    private final ObjectMapper objectMapper;
+    private final ImportJobQueue jobQueue;
 
-    public CityController(CityService service, CityImportService importService, ObjectMapper objectMapper) {
+    public CityController(CityService service, CityImportService importService, ImportJobQueue jobQueue) {
         this.service = service;
         this.importService = importService;
-        this.objectMapper = objectMapper;
+        this.jobQueue = jobQueue;
     }
 
     @GetMapping
@@ -40,13 +46,26 @@ public class CityController {
     }
 
     @GetMapping("/{id}")
-    public CityDto get(@PathVariable Long id) { return service.get(id); }
+    public ResponseEntity<CityDto> get(@PathVariable Long id) {
+        CityDto dto = service.get(id);
+        return ETags.ok(dto, dto.getVersion());
+    }
 
     @PostMapping
     public CityDto create(@Valid @RequestBody CityDto dto) { return service.create(dto); }
 
+    @PostMapping("/batch")
+    public CityBatchResultDto createBatch(@RequestBody List<CityDto> dtos) { return service.createBatch(dtos); }
+
     @PutMapping("/{id}")
-    public CityDto update(@PathVariable Long id, @Valid @RequestBody CityDto dto) { return service.update(id, dto); }
+    public ResponseEntity<CityDto> update(@PathVariable Long id,
+                                          @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                          @Valid @RequestBody CityDto dto) {
+        Long expected = ETags.parseIfMatch(ifMatch);
+        if (expected != null) dto.setVersion(expected);
+        CityDto updated = service.update(id, dto);
+        return ETags.ok(updated, updated.getVersion());
+    }
 
     @DeleteMapping("/{id}")
     public org.springframework.http.ResponseEntity<Void> delete(
@@ -58,12 +77,29 @@ public class CityController {
         return org.springframework.http.ResponseEntity.noContent().build();
     }
 
+    @PostMapping("/bulk-update")
+    public CityBulkUpdateResultDto updateBulk(@RequestBody CityBulkUpdateRequestDto rq) {
+        return service.updateBulk(rq);
+    }
+
+    @PostMapping("/bulk-delete")
+    public CityBulkDeleteResultDto deleteBulk(@RequestBody CityBulkDeleteRequestDto rq) {
+        return service.deleteBulk(rq);
+    }
+
     @GetMapping("/avg-telephone-code")
     public double averageTelephoneCode() { return service.averageTelephoneCode(); }
 
     @GetMapping("/names-starting")
-    public List<CityDto> namesStartingWith(@RequestParam(name = "prefix") String prefix) {
-        return service.findByNameStartsWith(prefix);
+    public ResponseEntity<List<CityDto>> namesStartingWith(@RequestParam(name = "prefix") String prefix,
+                                                           @RequestParam(name = "cursor", required = false) String cursor,
+                                                           @RequestParam(name = "limit", required = false) Integer limit) {
+        CursorPageDto<CityDto> page = service.findByNameStartsWith(prefix, cursor, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getContent());
     }
 
     @GetMapping("/meters-above-sea-level/unique")
@@ -82,21 +118,41 @@ public class CityController {
         return service.distanceFromOriginToOldestCity();
     }
 
+    /**
+     * Always queued: the response is 202 with the operation, whose state is at the Location
+     * ({@code GET /api/imports/{id}}) and on /topic/imports.
+     */
     @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ImportResultDto importJson(@RequestPart("file") MultipartFile file,
-                                      @RequestParam(name = "debugFailStage", required = false) String debugFailStage) {
+    public ResponseEntity<ImportOperationDto> importJson(@RequestPart("file") MultipartFile file,
+                                                         @RequestParam(name = "debugFailStage", required = false) String debugFailStage,
+                                                         @RequestParam(name = "chunked", required = false) Boolean chunked) {
         if (file == null || file.isEmpty()) {
             throw new IllegalArgumentException("Файл не передан или пустой.");
         }
 
+        // the multipart part is gone after the request, so the job gets its own copy
+        Path spooled = spool(file);
+        ImportOperationDto op = ImportOperationDto.fromEntity(
+                importService.submitImport(spooled, file.getOriginalFilename(), debugFailStage, chunked));
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/imports/" + op.getId()))
+                .body(op);
+    }
+
+    private Path spool(MultipartFile file) {
+        Path tmp = null;
         try {
-            byte[] fileBytes = file.getBytes();
-            List<CityDto> dtos = objectMapper.readValue(fileBytes, new TypeReference<List<CityDto>>() {});
-            return importService.importCities(dtos, fileBytes, file.getOriginalFilename(), debugFailStage);
-        } catch (JsonProcessingException e) {
-            throw new IllegalArgumentException("Некорректный JSON: " + e.getOriginalMessage());
-        } catch (java.io.IOException e) {
-            throw new IllegalArgumentException("Ошибка чтения файла: " + e.getMessage());
+            tmp = Files.createTempFile(jobQueue.spoolDir(), "import-", ".json");
+            file.transferTo(tmp);
+            return tmp;
+        } catch (IOException e) {
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                }
+            }
+            throw new IllegalStateException("Не удалось сохранить файл импорта: " + e.getMessage(), e);
         }
     }
 }
@@ -6,6 +6,7 @@ import ru.itmo.dto.CityPageDto;
 import ru.itmo.dto.CoordinatesDto;
 import ru.itmo.service.CoordinatesService;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -32,8 +33,13 @@ public class CoordinatesController {
     }
 
     @PutMapping("/{id}")
-    public CoordinatesDto update(@PathVariable("id") Long id, @Valid @RequestBody CoordinatesDto dto) {
-        return service.update(id, dto);
+    public ResponseEntity<CoordinatesDto> update(@PathVariable("id") Long id,
+                                         @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                         @Valid @RequestBody CoordinatesDto dto) {
+        Long expected = ETags.parseIfMatch(ifMatch);
+        if (expected != null) dto.setVersion(expected);
+        CoordinatesDto updated = service.update(id, dto);
+        return ETags.ok(updated, updated.getVersion());
     }
 
 
@@ -44,7 +50,8 @@ public class CoordinatesController {
     }
 
     @GetMapping("/{id}")
-    public CoordinatesDto get(@PathVariable("id") Long id) {
-        return service.get(id);
+    public ResponseEntity<CoordinatesDto> get(@PathVariable("id") Long id) {
+        CoordinatesDto dto = service.get(id);
+        return ETags.ok(dto, dto.getVersion());
     }
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package ru.itmo.controller;
+
+import org.springframework.http.ResponseEntity;
+import ru.itmo.exception.PreconditionFailedException;
+
+/**
+ * Entity version &lt;-&gt; ETag / If-Match, used for optimistic concurrency on PUT.
+ */
+final class ETags {
+
+    private ETags() {}
+
+    static <T> ResponseEntity<T> ok(T body, Long version) {
+        ResponseEntity.BodyBuilder b = ResponseEntity.ok();
+        if (version != null) b.eTag("\"" + version + "\"");
+        return b.body(body);
+    }
+
+    /**
+     * Version expected by the client, or null when If-Match is absent or "*". If-Match uses strong
+     * comparison (RFC 9110, 13.1.1), so a weak tag never matches and fails the precondition.
+     */
+    static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) return null;
+        String v = ifMatch.trim();
+        if ("*".equals(v)) return null;
+        if (v.startsWith("W/")) {
+            throw new PreconditionFailedException("Слабый ETag не подходит для If-Match: " + ifMatch);
+        }
+        if (v.length() >= 2 && v.startsWith("\"") && v.endsWith("\"")) v = v.substring(1, v.length() - 1);
+        try {
+            return Long.parseLong(v);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректный заголовок If-Match: " + ifMatch);
+        }
+    }
+}
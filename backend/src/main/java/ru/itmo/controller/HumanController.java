@@ -5,6 +5,7 @@ import ru.itmo.dto.HumanPageDto;
 import ru.itmo.dto.CityPageDto;
 import ru.itmo.dto.HumanDto;
 import ru.itmo.service.HumanService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -32,8 +33,13 @@ public class HumanController {
     }
 
     @PutMapping("/{id}")
-    public HumanDto update(@PathVariable("id") Long id, @Valid @RequestBody HumanDto dto) {
-        return service.update(id, dto);
+    public ResponseEntity<HumanDto> update(@PathVariable("id") Long id,
+                                         @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                         @Valid @RequestBody HumanDto dto) {
+        Long expected = ETags.parseIfMatch(ifMatch);
+        if (expected != null) dto.setVersion(expected);
+        HumanDto updated = service.update(id, dto);
+        return ETags.ok(updated, updated.getVersion());
     }
 
     @DeleteMapping("/{id}")
@@ -43,7 +49,8 @@ public class HumanController {
     }
 
     @GetMapping("/{id}")
-    public HumanDto get(@PathVariable("id") Long id) {
-        return service.get(id);
+    public ResponseEntity<HumanDto> get(@PathVariable("id") Long id) {
+        HumanDto dto = service.get(id);
+        return ETags.ok(dto, dto.getVersion());
     }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package ru.itmo.controller;
 
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpHeaders;
@@ -9,12 +11,16 @@ import org.springframework.web.bind.annotation.*;
 import ru.itmo.domain.ImportOperation;
 import ru.itmo.domain.ImportStatus;
 import ru.itmo.dto.ImportOperationDto;
+import ru.itmo.service.CityImportService;
+import ru.itmo.service.ImportJobQueue;
 import ru.itmo.service.ImportOperationService;
 import ru.itmo.storage.ImportFileStorageService;
-import ru.itmo.storage.StoredImportFile;
+import ru.itmo.storage.StoredImportStream;
 
+import java.net.URI;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 @RestController
@@ -23,10 +29,17 @@ public class ImportHistoryController {
 
     private final ImportOperationService service;
     private final ImportFileStorageService fileStorageService;
+    private final CityImportService importService;
+    private final ImportJobQueue jobQueue;
 
-    public ImportHistoryController(ImportOperationService service, ImportFileStorageService fileStorageService) {
+    public ImportHistoryController(ImportOperationService service,
+                                   ImportFileStorageService fileStorageService,
+                                   CityImportService importService,
+                                   ImportJobQueue jobQueue) {
         this.service = service;
         this.fileStorageService = fileStorageService;
+        this.importService = importService;
+        this.jobQueue = jobQueue;
     }
 
     @GetMapping
@@ -34,14 +47,32 @@ public class ImportHistoryController {
         return service.list(pageable).map(ImportOperationDto::fromEntity);
     }
 
+    @GetMapping("/{id}")
+    public ImportOperationDto get(@PathVariable Long id) {
+        return ImportOperationDto.fromEntity(service.getRequired(id));
+    }
+
+    @GetMapping("/queue")
+    public Map<String, Object> queue() {
+        return jobQueue.stats();
+    }
+
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<ImportOperationDto> resume(@PathVariable Long id) {
+        ImportOperationDto op = ImportOperationDto.fromEntity(importService.submitResume(id));
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/imports/" + op.getId()))
+                .body(op);
+    }
+
     @GetMapping(value = "/{id}/file", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<byte[]> downloadImportFile(@PathVariable Long id) {
+    public ResponseEntity<Resource> downloadImportFile(@PathVariable Long id) {
         ImportOperation op = service.getRequired(id);
         if (op.getStatus() != ImportStatus.SUCCESS || op.getFileFinalKey() == null || op.getFileFinalKey().isBlank()) {
             throw new NoSuchElementException("Файл импорта для операции id=" + id + " недоступен");
         }
 
-        StoredImportFile file = fileStorageService.download(op.getFileFinalKey());
+        StoredImportStream file = fileStorageService.openDownload(op.getFileFinalKey());
         String filename = op.getSourceFilename();
         if (filename == null || filename.isBlank()) {
             filename = "import-" + id + ".json";
@@ -49,10 +80,12 @@ public class ImportHistoryController {
 
         String encoded = URLEncoder.encode(filename, StandardCharsets.UTF_8).replace("+", "%20");
 
-        return ResponseEntity.ok()
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename*=UTF-8''" + encoded)
-                .contentType(MediaType.parseMediaType(file.getContentType()))
-                .contentLength(file.getBytes().length)
-                .body(file.getBytes());
+                .contentType(MediaType.parseMediaType(file.getContentType()));
+        if (file.getSizeBytes() >= 0) {
+            response.contentLength(file.getSizeBytes());
+        }
+        return response.body(new InputStreamResource(file.getContent()));
     }
 }
@@ -13,7 +13,6 @@ import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.JdbcTypeCode;
-import org.hibernate.annotations.SourceType;
 import org.hibernate.type.SqlTypes;
 import java.util.Date;
 
@@ -31,7 +30,8 @@ import java.util.Date;
 public class City {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "city_id_seq")
+    @SequenceGenerator(name = "city_id_seq", sequenceName = "city_id_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Name cannot be blank")
@@ -43,7 +43,7 @@ public class City {
     private Coordinates coordinates;
 
     @Column(name = "creation_date", nullable = false, updatable = false)
-    @CreationTimestamp(source = SourceType.DB)
+    @CreationTimestamp
     private LocalDate creationDate;
 
     @Positive(message = "Area must be > 0")
@@ -85,10 +85,17 @@ public class City {
     @JoinColumn(name = "governor_id")
     private Human governor;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
 
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
     public String getName() { return name; }
     public void setName(String name) {
         if (name == null || name.isBlank()) {
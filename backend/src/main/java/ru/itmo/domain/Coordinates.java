@@ -10,7 +10,8 @@ import jakarta.validation.constraints.Max;
 @Entity @Table(name = "coordinates")
 public class Coordinates {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "coordinates_id_seq")
+    @SequenceGenerator(name = "coordinates_id_seq", sequenceName = "coordinates_id_seq", allocationSize = 50)
     private Long id;
 
     @Max(value = 460, message = "X code cannot exceed 460")
@@ -20,6 +21,10 @@ public class Coordinates {
     @Column(nullable = false)
     private Float y;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     public Long getId() {
         return id;
     }
@@ -28,6 +33,14 @@ public class Coordinates {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public float getX() {
         return x;
     }
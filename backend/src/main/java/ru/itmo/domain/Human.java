@@ -11,11 +11,16 @@ import org.hibernate.annotations.CacheConcurrencyStrategy;
 public class Human {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "human_id_seq")
+    @SequenceGenerator(name = "human_id_seq", sequenceName = "human_id_seq", allocationSize = 50)
     private Long id;
 
     private float height;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     public Long getId() {
         return id;
     }
@@ -24,6 +29,14 @@ public class Human {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public float getHeight() {
         return height;
     }
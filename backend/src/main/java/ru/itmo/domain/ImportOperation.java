@@ -9,7 +9,8 @@ import java.time.LocalDateTime;
 public class ImportOperation {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "import_operation_id_seq")
+    @SequenceGenerator(name = "import_operation_id_seq", sequenceName = "import_operation_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "tx_id", nullable = false, unique = true, length = 64)
@@ -43,6 +44,20 @@ public class ImportOperation {
     @Column(name = "file_final_key")
     private String fileFinalKey;
 
+    @Column(name = "chunked", nullable = false)
+    private boolean chunked;
+
+    // records [0, committedOffset) of the file are in the database
+    @Column(name = "committed_offset", nullable = false)
+    private int committedOffset;
+
+    @Column(name = "total_count")
+    private Integer totalCount;
+
+    // JSON {"items", "total", "truncated"} of a file rejected by validation
+    @Column(name = "validation_errors")
+    private String validationErrors;
+
     public Long getId() { return id; }
 
     public String getTxId() { return txId; }
@@ -74,4 +89,20 @@ public class ImportOperation {
 
     public String getFileFinalKey() { return fileFinalKey; }
     public void setFileFinalKey(String fileFinalKey) { this.fileFinalKey = fileFinalKey; }
+
+    public boolean isChunked() { return chunked; }
+    public void setChunked(boolean chunked) { this.chunked = chunked; }
+
+    public int getCommittedOffset() { return committedOffset; }
+    public void setCommittedOffset(int committedOffset) { this.committedOffset = committedOffset; }
+
+    public Integer getTotalCount() { return totalCount; }
+    public void setTotalCount(Integer totalCount) { this.totalCount = totalCount; }
+
+    public String getValidationErrors() { return validationErrors; }
+    public void setValidationErrors(String validationErrors) { this.validationErrors = validationErrors; }
+
+    public boolean isResumable() {
+        return chunked && status == ImportStatus.FAILED && fileFinalKey != null && !fileFinalKey.isBlank();
+    }
 }
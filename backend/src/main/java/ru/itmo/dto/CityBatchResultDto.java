@@ -0,0 +1,44 @@
+package ru.itmo.dto;
+
+import java.util.List;
+
+public class CityBatchResultDto {
+    private int created;
+    private List<Item> items;
+
+    public CityBatchResultDto() {}
+
+    public CityBatchResultDto(int created, List<Item> items) {
+        this.created = created;
+        this.items = items;
+    }
+
+    public int getCreated() { return created; }
+    public void setCreated(int created) { this.created = created; }
+
+    public List<Item> getItems() { return items; }
+    public void setItems(List<Item> items) { this.items = items; }
+
+    public static class Item {
+        private int index;
+        private Long id;
+        private String name;
+
+        public Item() {}
+
+        public Item(int index, Long id, String name) {
+            this.index = index;
+            this.id = id;
+            this.name = name;
+        }
+
+        public int getIndex() { return index; }
+        public void setIndex(int index) { this.index = index; }
+
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+    }
+}
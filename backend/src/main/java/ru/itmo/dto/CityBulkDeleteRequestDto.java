@@ -0,0 +1,24 @@
+package ru.itmo.dto;
+
+import java.util.List;
+
+public class CityBulkDeleteRequestDto {
+    private List<Long> ids;
+    private PageRequestDto filter;
+    private boolean deleteGovernorIfOrphan;
+    private boolean deleteCoordinatesIfOrphan;
+
+    public CityBulkDeleteRequestDto() {}
+
+    public List<Long> getIds() { return ids; }
+    public void setIds(List<Long> ids) { this.ids = ids; }
+
+    public PageRequestDto getFilter() { return filter; }
+    public void setFilter(PageRequestDto filter) { this.filter = filter; }
+
+    public boolean isDeleteGovernorIfOrphan() { return deleteGovernorIfOrphan; }
+    public void setDeleteGovernorIfOrphan(boolean deleteGovernorIfOrphan) { this.deleteGovernorIfOrphan = deleteGovernorIfOrphan; }
+
+    public boolean isDeleteCoordinatesIfOrphan() { return deleteCoordinatesIfOrphan; }
+    public void setDeleteCoordinatesIfOrphan(boolean deleteCoordinatesIfOrphan) { this.deleteCoordinatesIfOrphan = deleteCoordinatesIfOrphan; }
+}
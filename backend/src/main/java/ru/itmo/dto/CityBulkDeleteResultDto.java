@@ -0,0 +1,31 @@
+package ru.itmo.dto;
+
+import java.util.List;
+
+public class CityBulkDeleteResultDto {
+    private int deleted;
+    private List<Long> cityIds;
+    private List<Long> governorIds;
+    private List<Long> coordinatesIds;
+
+    public CityBulkDeleteResultDto() {}
+
+    public CityBulkDeleteResultDto(List<Long> cityIds, List<Long> governorIds, List<Long> coordinatesIds) {
+        this.deleted = cityIds.size();
+        this.cityIds = cityIds;
+        this.governorIds = governorIds;
+        this.coordinatesIds = coordinatesIds;
+    }
+
+    public int getDeleted() { return deleted; }
+    public void setDeleted(int deleted) { this.deleted = deleted; }
+
+    public List<Long> getCityIds() { return cityIds; }
+    public void setCityIds(List<Long> cityIds) { this.cityIds = cityIds; }
+
+    public List<Long> getGovernorIds() { return governorIds; }
+    public void setGovernorIds(List<Long> governorIds) { this.governorIds = governorIds; }
+
+    public List<Long> getCoordinatesIds() { return coordinatesIds; }
+    public void setCoordinatesIds(List<Long> coordinatesIds) { this.coordinatesIds = coordinatesIds; }
+}
@@ -0,0 +1,49 @@
+package ru.itmo.dto;
+
+import java.util.List;
+
+public class CityBulkUpdateRequestDto {
+    private List<Long> ids;
+    private PageRequestDto filter;
+
+    private String climate;
+    private String government;
+    private boolean clearGovernment;
+    private Long governorId;
+    private boolean clearGovernor;
+    private Boolean capital;
+    private Integer telephoneCode;
+    private Integer metersAboveSeaLevel;
+
+    public CityBulkUpdateRequestDto() {}
+
+    public List<Long> getIds() { return ids; }
+    public void setIds(List<Long> ids) { this.ids = ids; }
+
+    public PageRequestDto getFilter() { return filter; }
+    public void setFilter(PageRequestDto filter) { this.filter = filter; }
+
+    public String getClimate() { return climate; }
+    public void setClimate(String climate) { this.climate = climate; }
+
+    public String getGovernment() { return government; }
+    public void setGovernment(String government) { this.government = government; }
+
+    public boolean isClearGovernment() { return clearGovernment; }
+    public void setClearGovernment(boolean clearGovernment) { this.clearGovernment = clearGovernment; }
+
+    public Long getGovernorId() { return governorId; }
+    public void setGovernorId(Long governorId) { this.governorId = governorId; }
+
+    public boolean isClearGovernor() { return clearGovernor; }
+    public void setClearGovernor(boolean clearGovernor) { this.clearGovernor = clearGovernor; }
+
+    public Boolean getCapital() { return capital; }
+    public void setCapital(Boolean capital) { this.capital = capital; }
+
+    public Integer getTelephoneCode() { return telephoneCode; }
+    public void setTelephoneCode(Integer telephoneCode) { this.telephoneCode = telephoneCode; }
+
+    public Integer getMetersAboveSeaLevel() { return metersAboveSeaLevel; }
+    public void setMetersAboveSeaLevel(Integer metersAboveSeaLevel) { this.metersAboveSeaLevel = metersAboveSeaLevel; }
+}
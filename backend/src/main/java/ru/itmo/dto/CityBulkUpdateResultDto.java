@@ -0,0 +1,21 @@
+package ru.itmo.dto;
+
+import java.util.List;
+
+public class CityBulkUpdateResultDto {
+    private int updated;
+    private List<Long> cityIds;
+
+    public CityBulkUpdateResultDto() {}
+
+    public CityBulkUpdateResultDto(List<Long> cityIds) {
+        this.updated = cityIds.size();
+        this.cityIds = cityIds;
+    }
+
+    public int getUpdated() { return updated; }
+    public void setUpdated(int updated) { this.updated = updated; }
+
+    public List<Long> getCityIds() { return cityIds; }
+    public void setCityIds(List<Long> cityIds) { this.cityIds = cityIds; }
+}
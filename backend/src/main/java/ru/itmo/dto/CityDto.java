@@ -65,6 +65,8 @@ public class CityDto {
     private Long governorId;
     private HumanDto governor;
 
+    private Long version;
+
     public CityDto() {
     }
 
@@ -142,6 +144,14 @@ public class CityDto {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "CityDto{" +
@@ -235,6 +245,7 @@ public class CityDto {
         dto.setTelephoneCode(c.getTelephoneCode());
         dto.setClimate(c.getClimate() != null ? c.getClimate().name() : null);
         dto.setGovernment(c.getGovernment() != null ? c.getGovernment().name() : null);
+        dto.setVersion(c.getVersion());
 
         if (c.getCoordinates() != null) {
             dto.setCoordinatesId(c.getCoordinates().getId());
@@ -1,6 +1,7 @@
 package ru.itmo.dto;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 
@@ -8,10 +9,13 @@ public class CityPageDto<T> {
     private List<T> content;
     private int page;
     private int size;
-    private long totalElements;
-    private int totalPages;
+    private Long totalElements;
+    private Integer totalPages;
     private boolean first;
     private boolean last;
+    private boolean hasNext;
+    private boolean totalEstimated;
+    private String nextCursor;
 
     public static <T> CityPageDto<T> fromPage(Page<T> p) {
         CityPageDto<T> dto = new CityPageDto<>();
@@ -22,6 +26,30 @@ public class CityPageDto<T> {
         dto.totalPages = p.getTotalPages();
         dto.first = p.isFirst();
         dto.last = p.isLast();
+        dto.hasNext = p.hasNext();
+        return dto;
+    }
+
+    public static <T> CityPageDto<T> fromSlice(Slice<T> s) {
+        CityPageDto<T> dto = new CityPageDto<>();
+        dto.content = s.getContent();
+        dto.page = s.getNumber();
+        dto.size = s.getSize();
+        dto.first = s.isFirst();
+        dto.last = s.isLast();
+        dto.hasNext = s.hasNext();
+        return dto;
+    }
+
+    public static <T> CityPageDto<T> fromKeyset(List<T> content, int size, boolean first, String nextCursor) {
+        CityPageDto<T> dto = new CityPageDto<>();
+        dto.content = content;
+        dto.page = 0;
+        dto.size = size;
+        dto.first = first;
+        dto.last = nextCursor == null;
+        dto.hasNext = nextCursor != null;
+        dto.nextCursor = nextCursor;
         return dto;
     }
 
@@ -49,19 +77,19 @@ public class CityPageDto<T> {
         this.size = size;
     }
 
-    public long getTotalElements() {
+    public Long getTotalElements() {
         return totalElements;
     }
 
-    public void setTotalElements(long totalElements) {
+    public void setTotalElements(Long totalElements) {
         this.totalElements = totalElements;
     }
 
-    public int getTotalPages() {
+    public Integer getTotalPages() {
         return totalPages;
     }
 
-    public void setTotalPages(int totalPages) {
+    public void setTotalPages(Integer totalPages) {
         this.totalPages = totalPages;
     }
 
@@ -80,4 +108,28 @@ public class CityPageDto<T> {
     public void setLast(boolean last) {
         this.last = last;
     }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+
+    public boolean isTotalEstimated() {
+        return totalEstimated;
+    }
+
+    public void setTotalEstimated(boolean totalEstimated) {
+        this.totalEstimated = totalEstimated;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
 }
\ No newline at end of file
@@ -17,6 +17,8 @@ public class CoordinatesDto {
     @NotNull(message = "Y must be not null")
     private Float y;
 
+    private Long version;
+
     public CoordinatesDto() {}
 
     public CoordinatesDto(Long id, Float x, Float y) {
@@ -31,6 +33,7 @@ public class CoordinatesDto {
         dto.setId(e.getId());
         dto.setX(e.getX());
         dto.setY(e.getY());
+        dto.setVersion(e.getVersion());
         return dto;
     }
 
@@ -55,6 +58,14 @@ public class CoordinatesDto {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Float getY() {
         return y;
     }
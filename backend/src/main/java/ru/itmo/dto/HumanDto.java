@@ -14,6 +14,8 @@ public class HumanDto {
     @Positive(message = "Height must be greater than 0")
     private Float height;
 
+    private Long version;
+
     public HumanDto() {
     }
 
@@ -26,6 +28,7 @@ public class HumanDto {
         HumanDto dto = new HumanDto();
         dto.setId(e.getId());
         dto.setHeight(e.getHeight());
+        dto.setVersion(e.getVersion());
         return dto;
     }
 
@@ -47,6 +50,14 @@ public class HumanDto {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Float getHeight() {
         return height;
     }
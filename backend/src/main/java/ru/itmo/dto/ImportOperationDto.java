@@ -1,5 +1,6 @@
 package ru.itmo.dto;
 
+import com.fasterxml.jackson.annotation.JsonRawValue;
 import ru.itmo.domain.ImportOperation;
 import ru.itmo.domain.ImportStatus;
 
@@ -15,6 +16,12 @@ public class ImportOperationDto {
     private String errorMessage;
     private String sourceFilename;
     private String downloadUrl;
+    private boolean chunked;
+    private int committedOffset;
+    private Integer totalCount;
+    private boolean resumable;
+    @JsonRawValue
+    private String validationErrors;
 
     public static ImportOperationDto fromEntity(ImportOperation e) {
         ImportOperationDto d = new ImportOperationDto();
@@ -26,6 +33,11 @@ public class ImportOperationDto {
         d.finishedAt = e.getFinishedAt();
         d.errorMessage = e.getErrorMessage();
         d.sourceFilename = e.getSourceFilename();
+        d.chunked = e.isChunked();
+        d.committedOffset = e.getCommittedOffset();
+        d.totalCount = e.getTotalCount();
+        d.resumable = e.isResumable();
+        d.validationErrors = e.getValidationErrors();
         if (e.getStatus() == ImportStatus.SUCCESS && e.getFileFinalKey() != null && !e.getFileFinalKey().isBlank()) {
             d.downloadUrl = "/api/imports/" + e.getId() + "/file";
         }
@@ -41,4 +53,9 @@ public class ImportOperationDto {
     public String getErrorMessage() { return errorMessage; }
     public String getSourceFilename() { return sourceFilename; }
     public String getDownloadUrl() { return downloadUrl; }
+    public boolean isChunked() { return chunked; }
+    public int getCommittedOffset() { return committedOffset; }
+    public Integer getTotalCount() { return totalCount; }
+    public boolean isResumable() { return resumable; }
+    public String getValidationErrors() { return validationErrors; }
 }
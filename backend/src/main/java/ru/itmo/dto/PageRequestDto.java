@@ -19,6 +19,13 @@ public class PageRequestDto {
     private String sortBy;
     private String dir = "asc";
 
+    private Boolean keyset;
+    private String cursor;
+
+    private String countMode;
+
+    private Boolean fuzzy;
+
     private Long id;
     private String name;
     private String climate;
@@ -39,6 +46,27 @@ public class PageRequestDto {
     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
     private LocalDate establishmentDate;
 
+    private List<String> climateIn;
+    private List<String> governmentIn;
+
+    private Long populationMin;
+    private Long populationMax;
+    private Integer areaMin;
+    private Integer areaMax;
+    private Integer telephoneCodeMin;
+    private Integer telephoneCodeMax;
+    private Integer metersAboveSeaLevelMin;
+    private Integer metersAboveSeaLevelMax;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate creationDateFrom;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate creationDateTo;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate establishmentDateFrom;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate establishmentDateTo;
+
 
     public Integer getPage() { return page; }
     public void setPage(Integer page) { this.page = page; }
@@ -55,6 +83,18 @@ public class PageRequestDto {
     public String getDir() { return dir; }
     public void setDir(String dir) { this.dir = dir; }
 
+    public Boolean getKeyset() { return keyset; }
+    public void setKeyset(Boolean keyset) { this.keyset = keyset; }
+
+    public String getCursor() { return cursor; }
+    public void setCursor(String cursor) { this.cursor = cursor; }
+
+    public String getCountMode() { return countMode; }
+    public void setCountMode(String countMode) { this.countMode = countMode; }
+
+    public Boolean getFuzzy() { return fuzzy; }
+    public void setFuzzy(Boolean fuzzy) { this.fuzzy = fuzzy; }
+
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
@@ -96,4 +136,46 @@ public class PageRequestDto {
 
     public LocalDate getEstablishmentDate() { return establishmentDate; }
     public void setEstablishmentDate(LocalDate establishmentDate) { this.establishmentDate = establishmentDate; }
+
+    public List<String> getClimateIn() { return climateIn; }
+    public void setClimateIn(List<String> climateIn) { this.climateIn = climateIn; }
+
+    public List<String> getGovernmentIn() { return governmentIn; }
+    public void setGovernmentIn(List<String> governmentIn) { this.governmentIn = governmentIn; }
+
+    public Long getPopulationMin() { return populationMin; }
+    public void setPopulationMin(Long populationMin) { this.populationMin = populationMin; }
+
+    public Long getPopulationMax() { return populationMax; }
+    public void setPopulationMax(Long populationMax) { this.populationMax = populationMax; }
+
+    public Integer getAreaMin() { return areaMin; }
+    public void setAreaMin(Integer areaMin) { this.areaMin = areaMin; }
+
+    public Integer getAreaMax() { return areaMax; }
+    public void setAreaMax(Integer areaMax) { this.areaMax = areaMax; }
+
+    public Integer getTelephoneCodeMin() { return telephoneCodeMin; }
+    public void setTelephoneCodeMin(Integer telephoneCodeMin) { this.telephoneCodeMin = telephoneCodeMin; }
+
+    public Integer getTelephoneCodeMax() { return telephoneCodeMax; }
+    public void setTelephoneCodeMax(Integer telephoneCodeMax) { this.telephoneCodeMax = telephoneCodeMax; }
+
+    public Integer getMetersAboveSeaLevelMin() { return metersAboveSeaLevelMin; }
+    public void setMetersAboveSeaLevelMin(Integer metersAboveSeaLevelMin) { this.metersAboveSeaLevelMin = metersAboveSeaLevelMin; }
+
+    public Integer getMetersAboveSeaLevelMax() { return metersAboveSeaLevelMax; }
+    public void setMetersAboveSeaLevelMax(Integer metersAboveSeaLevelMax) { this.metersAboveSeaLevelMax = metersAboveSeaLevelMax; }
+
+    public LocalDate getCreationDateFrom() { return creationDateFrom; }
+    public void setCreationDateFrom(LocalDate creationDateFrom) { this.creationDateFrom = creationDateFrom; }
+
+    public LocalDate getCreationDateTo() { return creationDateTo; }
+    public void setCreationDateTo(LocalDate creationDateTo) { this.creationDateTo = creationDateTo; }
+
+    public LocalDate getEstablishmentDateFrom() { return establishmentDateFrom; }
+    public void setEstablishmentDateFrom(LocalDate establishmentDateFrom) { this.establishmentDateFrom = establishmentDateFrom; }
+
+    public LocalDate getEstablishmentDateTo() { return establishmentDateTo; }
+    public void setEstablishmentDateTo(LocalDate establishmentDateTo) { this.establishmentDateTo = establishmentDateTo; }
 }
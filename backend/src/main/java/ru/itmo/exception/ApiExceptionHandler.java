@@ -9,7 +9,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.http.*;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.lang.Nullable;
@@ -23,6 +25,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 import ru.itmo.exception.ImportValidationException;
+import ru.itmo.retry.ConflictRetryExecutor;
 
 import java.sql.SQLIntegrityConstraintViolationException;
 import java.sql.SQLException;
@@ -94,7 +97,11 @@ public class ApiExceptionHandler extends ResponseEntityExceptionHandler {
     }
 
     @ExceptionHandler({DataIntegrityViolationException.class, SQLIntegrityConstraintViolationException.class})
-    public ResponseEntity<Object> handleIntegrity(Exception ex, HttpServletRequest req) {
+    public ResponseEntity<?> handleIntegrity(Exception ex, HttpServletRequest req) {
+        BusinessRuleViolationException business = DbConstraints.asBusinessError(ex);
+        if (business != null) {
+            return handleBusinessRule(business, req);
+        }
         return respond(HttpStatus.CONFLICT, "data_integrity_violation", "Data integrity violation", req.getRequestURI(), null);
     }
 
@@ -146,7 +153,7 @@ public class ApiExceptionHandler extends ResponseEntityExceptionHandler {
                 "validation_failed",
                 "Import validation failed",
                 req.getRequestURI(),
-                Map.of("items", ex.getErrors())
+                Map.of("items", ex.getErrors(), "truncated", ex.isTruncated())
         );
     }
 
@@ -163,12 +170,23 @@ public class ApiExceptionHandler extends ResponseEntityExceptionHandler {
     }
 
 
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<Object> handlePreconditionFailed(PreconditionFailedException ex, HttpServletRequest req) {
+        return respond(HttpStatus.PRECONDITION_FAILED, "precondition_failed", ex.getMessage(), req.getRequestURI(), null);
+    }
+
     @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
     public ResponseEntity<Object> handleOptimistic(ObjectOptimisticLockingFailureException ex, HttpServletRequest req) {
         return respond(HttpStatus.CONFLICT, "optimistic_lock_conflict",
                 "Concurrent update conflict. Please retry.", req.getRequestURI(), null);
     }
 
+    @ExceptionHandler(PessimisticLockingFailureException.class)
+    public ResponseEntity<Object> handlePessimisticLocking(PessimisticLockingFailureException ex, HttpServletRequest req) {
+        String state = ConflictRetryExecutor.conflictState(ex);
+        return mapSqlState(state != null ? state : "40001", req.getRequestURI(), ex);
+    }
+
     @ExceptionHandler({TransactionSystemException.class, JpaSystemException.class})
     public ResponseEntity<Object> handleTxExceptions(Exception ex, HttpServletRequest req) {
         Throwable root = getRootCause(ex);
@@ -205,6 +223,12 @@ public class ApiExceptionHandler extends ResponseEntityExceptionHandler {
         return respond(HttpStatus.INTERNAL_SERVER_ERROR, "db_error", "Database error", path, null);
     }
 
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<Object> handleTaskRejected(TaskRejectedException ex, HttpServletRequest req) {
+        return respond(HttpStatus.SERVICE_UNAVAILABLE, "import_queue_full",
+                "Import queue is full. Please retry later.", req.getRequestURI(), null);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Object> handleOther(Exception ex, HttpServletRequest req) {
         log.error("Unhandled error", ex);
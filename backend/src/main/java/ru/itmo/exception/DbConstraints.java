@@ -0,0 +1,51 @@
+package ru.itmo.exception;
+
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.ServerErrorMessage;
+
+import java.util.Map;
+
+/**
+ * Names of the unique indexes in db/setup.sql that stand for business rules,
+ * and the business error each one is reported as.
+ */
+public final class DbConstraints {
+
+    public static final String CITY_NAME_UNIQUE = "uq_city_name_lower";
+    public static final String COORDINATES_XY_UNIQUE = "uq_coordinates_xy";
+
+    private static final Map<String, BusinessError> BUSINESS_ERRORS = Map.of(
+            CITY_NAME_UNIQUE, new BusinessError("CITY_NAME_NOT_UNIQUE", "Название города должно быть уникальным"),
+            COORDINATES_XY_UNIQUE, new BusinessError("COORDINATES_NOT_UNIQUE", "Пара координат должна быть уникальной")
+    );
+
+    private DbConstraints() {}
+
+    /**
+     * Name of the constraint behind a unique violation (SQLSTATE 23505) somewhere in the cause chain, or null.
+     */
+    public static String uniqueViolation(Throwable ex) {
+        for (Throwable t = ex; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof PSQLException psql && "23505".equals(psql.getSQLState())) {
+                ServerErrorMessage m = psql.getServerErrorMessage();
+                return m != null ? m.getConstraint() : null;
+            }
+        }
+        return null;
+    }
+
+    public static boolean isUniqueViolation(Throwable ex, String constraint) {
+        return constraint.equals(uniqueViolation(ex));
+    }
+
+    /**
+     * Business error registered for the violated unique constraint, or null.
+     */
+    public static BusinessRuleViolationException asBusinessError(Throwable ex) {
+        String constraint = uniqueViolation(ex);
+        BusinessError e = constraint != null ? BUSINESS_ERRORS.get(constraint) : null;
+        return e != null ? new BusinessRuleViolationException(e.code(), e.message()) : null;
+    }
+
+    private record BusinessError(String code, String message) {}
+}
@@ -5,16 +5,27 @@ import java.util.List;
 public class ImportValidationException extends RuntimeException {
 
     private final List<ItemError> errors;
+    private final boolean truncated;
 
     public ImportValidationException(List<ItemError> errors) {
+        this(errors, false);
+    }
+
+    /** {@code truncated}: validation stopped before the end of the file, later records were not checked. */
+    public ImportValidationException(List<ItemError> errors, boolean truncated) {
         super("Import validation failed");
         this.errors = errors;
+        this.truncated = truncated;
     }
 
     public List<ItemError> getErrors() {
         return errors;
     }
 
+    public boolean isTruncated() {
+        return truncated;
+    }
+
     public static class ItemError {
         private int index;
         private String field;
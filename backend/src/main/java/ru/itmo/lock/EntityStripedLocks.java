@@ -0,0 +1,140 @@
+package ru.itmo.lock;
+
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import ru.itmo.exception.BusinessRuleViolationException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Fixed array of fair locks; (entity, id) is hashed onto a stripe, so writers of the same
+ * row queue up here instead of in the database.
+ */
+@Component
+public class EntityStripedLocks {
+
+    private final ReentrantLock[] stripes;
+    private final long maxWaitMillis;
+    private volatile boolean enabled;
+
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    public EntityStripedLocks(Environment env) {
+        int requested = Integer.parseInt(env.getProperty("lock.striped.stripes", "256"));
+        int size = Integer.highestOneBit(Math.max(1, requested - 1) << 1);
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock(true);
+        }
+        this.maxWaitMillis = Long.parseLong(env.getProperty("lock.striped.maxWaitMillis", "2000"));
+        this.enabled = Boolean.parseBoolean(env.getProperty("lock.striped.enabled", "true"));
+    }
+
+    public <T> T withLock(String entity, Object id, Supplier<T> action) {
+        try {
+            return withLockChecked(entity, id, action::get);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    <T> T withLockChecked(String entity, Object id, Guarded<T> action) throws Throwable {
+        if (!enabled || id == null) {
+            return action.run();
+        }
+
+        Counters c = counters.computeIfAbsent(entity, k -> new Counters());
+        ReentrantLock lock = stripes[stripe(entity, id)];
+
+        long start = System.nanoTime();
+        boolean acquired = lock.tryLock();
+        if (!acquired) {
+            c.contended.increment();
+            try {
+                acquired = lock.tryLock(maxWaitMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        long waited = System.nanoTime() - start;
+        c.waitNanos.add(waited);
+        c.maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+        if (!acquired) {
+            c.timeouts.increment();
+            throw new BusinessRuleViolationException(
+                    "ENTITY_BUSY",
+                    entity + " id=" + id + " сейчас изменяется другим запросом, повторите попытку"
+            );
+        }
+
+        c.acquired.increment();
+        try {
+            return action.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int stripe(String entity, Object id) {
+        int h = entity.hashCode() * 31 + id.hashCode();
+        h ^= (h >>> 16);
+        return h & (stripes.length - 1);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> byEntity = new TreeMap<>();
+        counters.forEach((entity, c) -> {
+            long acquired = c.acquired.sum();
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("acquired", acquired);
+            m.put("contended", c.contended.sum());
+            m.put("timeouts", c.timeouts.sum());
+            m.put("avgWaitMillis", acquired == 0 ? 0.0 : c.waitNanos.sum() / 1_000_000.0 / acquired);
+            m.put("maxWaitMillis", c.maxWaitNanos.get() / 1_000_000.0);
+            byEntity.put(entity, m);
+        });
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("enabled", enabled);
+        out.put("stripes", stripes.length);
+        out.put("maxWaitMillis", maxWaitMillis);
+        out.put("entities", byEntity);
+        return out;
+    }
+
+    public void reset() {
+        counters.clear();
+    }
+
+    @FunctionalInterface
+    interface Guarded<T> {
+        T run() throws Throwable;
+    }
+
+    private static final class Counters {
+        final LongAdder acquired = new LongAdder();
+        final LongAdder contended = new LongAdder();
+        final LongAdder timeouts = new LongAdder();
+        final LongAdder waitNanos = new LongAdder();
+        final AtomicLong maxWaitNanos = new AtomicLong();
+    }
+}
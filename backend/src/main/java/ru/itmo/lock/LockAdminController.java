@@ -0,0 +1,37 @@
+package ru.itmo.lock;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/locks")
+public class LockAdminController {
+
+    private final EntityStripedLocks locks;
+
+    public LockAdminController(EntityStripedLocks locks) {
+        this.locks = locks;
+    }
+
+    @GetMapping
+    public Map<String, Object> stats() {
+        return locks.stats();
+    }
+
+    @PostMapping("/enabled")
+    public Map<String, Object> setEnabled(@RequestParam boolean enabled) {
+        locks.setEnabled(enabled);
+        return locks.stats();
+    }
+
+    @PostMapping("/reset")
+    public Map<String, Object> reset() {
+        locks.reset();
+        return locks.stats();
+    }
+}
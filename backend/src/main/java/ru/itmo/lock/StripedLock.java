@@ -0,0 +1,20 @@
+package ru.itmo.lock;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Serializes concurrent calls for the same entity id inside this JVM before a transaction
+ * (and a pooled connection) is opened. The id is taken from the argument at {@link #idArg()}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface StripedLock {
+
+    /** Entity name, part of the stripe key and of the metrics. */
+    String entity();
+
+    int idArg() default 0;
+}
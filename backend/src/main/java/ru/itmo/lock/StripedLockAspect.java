@@ -0,0 +1,31 @@
+package ru.itmo.lock;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Ordered outside both the retry advice and the transaction interceptor: the lock is
+ * taken before a connection is borrowed and held across retries.
+ */
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 200)
+public class StripedLockAspect {
+
+    private final EntityStripedLocks locks;
+
+    public StripedLockAspect(EntityStripedLocks locks) {
+        this.locks = locks;
+    }
+
+    @Around("@annotation(striped)")
+    public Object lock(ProceedingJoinPoint pjp, StripedLock striped) throws Throwable {
+        Object[] args = pjp.getArgs();
+        Object id = striped.idArg() < args.length ? args[striped.idArg()] : null;
+        return locks.withLockChecked(striped.entity(), id, pjp::proceed);
+    }
+}
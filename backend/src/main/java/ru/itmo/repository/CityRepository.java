@@ -1,27 +1,66 @@
 package ru.itmo.repository;
 
 import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.lang.Nullable;
+import ru.itmo.analytics.CityAnalyticsRow;
 import ru.itmo.domain.City;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface CityRepository extends JpaRepository<City, Long>, JpaSpecificationExecutor<City> {
+public interface CityRepository extends JpaRepository<City, Long>, JpaSpecificationExecutor<City>, CityRepositoryCustom {
 
-    long countByGovernorId(Long humanId);
+    @Override
+    @EntityGraph("City.withRelations")
+    Page<City> findAll(@Nullable Specification<City> spec, Pageable pageable);
 
-    long countByCoordinatesId(Long coordinatesId);
+    @Override
+    @EntityGraph("City.withRelations")
+    List<City> findAll();
+
+    @Query("SELECT lower(c.name) FROM City c WHERE lower(c.name) IN :names")
+    List<String> findExistingLowerNames(@Param("names") Collection<String> names);
 
-    boolean existsByNameIgnoreCase(String name);
+    long countByGovernorId(Long humanId);
 
-    boolean existsByNameIgnoreCaseAndIdNot(String name, Long id);
+    long countByCoordinatesId(Long coordinatesId);
 
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("select c from City c where c.id = :id")
     Optional<City> findByIdForUpdate(@Param("id") Long id);
 
+    @Query(value = "SELECT CAST(reltuples AS bigint) FROM pg_class WHERE oid = to_regclass('city')", nativeQuery = true)
+    Long estimatedRowCount();
+
+    @Query("select avg(c.telephoneCode) from City c where c.telephoneCode is not null")
+    Double averageTelephoneCode();
+
+    @Query("select distinct c.metersAboveSeaLevel from City c " +
+            "where c.metersAboveSeaLevel is not null order by c.metersAboveSeaLevel")
+    List<Integer> findDistinctMetersAboveSeaLevel();
+
+    @EntityGraph(attributePaths = "coordinates")
+    Optional<City> findFirstByOrderByAreaDescIdAsc();
+
+    @EntityGraph(attributePaths = "coordinates")
+    Optional<City> findFirstByEstablishmentDateNotNullOrderByEstablishmentDateAscIdAsc();
+
+    @EntityGraph("City.withRelations")
+    List<City> findByIdIn(Collection<Long> ids);
+
+    @Query("select new ru.itmo.analytics.CityAnalyticsRow(c.id, c.name, c.telephoneCode, c.metersAboveSeaLevel, " +
+            "c.area, c.establishmentDate, co.id, co.x, co.y) from City c join c.coordinates co")
+    Stream<CityAnalyticsRow> streamAnalyticsRows();
+
 }
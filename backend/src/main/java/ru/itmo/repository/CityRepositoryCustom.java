@@ -0,0 +1,125 @@
+package ru.itmo.repository;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import ru.itmo.analytics.CityAnalyticsRow;
+import ru.itmo.domain.City;
+import ru.itmo.domain.Climate;
+import ru.itmo.domain.Government;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+public interface CityRepositoryCustom {
+
+    /**
+     * Fetches one window of cities without issuing the companion COUNT query.
+     * Coordinates and governor are fetched in the same statement.
+     */
+    List<City> findSlice(Specification<City> spec, Sort sort, long offset, int limit);
+
+    /**
+     * Same window as {@link #findSlice}, selected directly into {@link CityRow}:
+     * no entity hydration, no dirty-checking snapshots and no L2 cache puts.
+     */
+    List<CityRow> findRows(Specification<City> spec, Sort sort, long offset, int limit);
+
+    /**
+     * Like {@link #findRows}, but ranked by trigram similarity of the name to {@code name}
+     * first; {@code sort} only breaks ties.
+     */
+    List<CityRow> findRowsBySimilarName(Specification<City> spec, String name, Sort sort, long offset, int limit);
+
+    /** Ids of all cities matching {@code spec}, at most {@code limit} of them. */
+    List<Long> findIds(Specification<City> spec, int limit);
+
+    /**
+     * Deletes the given cities and, if requested, the governors and coordinates that no
+     * longer have any city pointing at them. Runs as plain SQL, so the affected rows are
+     * evicted from the L2 cache explicitly.
+     */
+    BulkDeleted deleteCascading(Collection<Long> cityIds, boolean orphanGovernors, boolean orphanCoordinates);
+
+    record BulkDeleted(List<Long> cityIds, List<Long> governorIds, List<Long> coordinatesIds) {}
+
+    /**
+     * Applies {@code patch} to the given cities with one UPDATE, bumping their version and
+     * evicting them from the L2 cache. Returns the new state of every updated row together with
+     * its capital rule violation, if any, checked against {@code minGovernorHeight}.
+     */
+    List<PatchedCity> patchAll(Collection<Long> cityIds, CityPatch patch, float minGovernorHeight);
+
+    /** Null fields are left untouched; the clear flags set the column to NULL. */
+    record CityPatch(Climate climate,
+                     Government government,
+                     boolean clearGovernment,
+                     Long governorId,
+                     boolean clearGovernor,
+                     Boolean capital,
+                     Integer telephoneCode,
+                     Integer metersAboveSeaLevel) {
+
+        public boolean isEmpty() {
+            return climate == null && government == null && !clearGovernment
+                    && governorId == null && !clearGovernor && capital == null
+                    && telephoneCode == null && metersAboveSeaLevel == null;
+        }
+    }
+
+    /** {@code capitalViolation} is null when the row satisfies the capital rule. */
+    record PatchedCity(CityAnalyticsRow row, CapitalViolation capitalViolation) {}
+
+    enum CapitalViolation { GOVERNOR_MISSING, GOVERNOR_TOO_SHORT }
+
+    /**
+     * Which of the given coordinates ids, human ids (with their heights) and lower-cased city names already exist.
+     * One {@code = ANY(array)} query per kind and chunk of values, outside the persistence context.
+     */
+    ExistingReferences findExisting(Collection<Long> coordinatesIds, Collection<Long> governorIds, Collection<String> lowerNames);
+
+    record ExistingReferences(Set<Long> coordinatesIds, Map<Long, Float> governorHeights, Set<String> lowerNames) {}
+
+    /**
+     * Streams the records {@code source} feeds with COPY into a temporary stage table created for the
+     * caller's transaction and dropped with it; {@link #insertStaged} consumes them.
+     */
+    int copyToStage(CopySource source);
+
+    /** Staged capitals without a governor or with one shorter than {@code minGovernorHeight}, in file order. */
+    List<StagedCapitalViolation> findStagedCapitalViolations(float minGovernorHeight);
+
+    /**
+     * Creates the staged inline coordinates (existing pairs are reused) and governors, inserts the
+     * cities with one INSERT ... SELECT and drops the stage. Returns the new cities' analytics rows
+     * in file order.
+     */
+    List<CityAnalyticsRow> insertStaged();
+
+    @FunctionalInterface
+    interface CopySource {
+        void feed(Consumer<StagedCity> sink);
+    }
+
+    /** Either {@code coordinatesId} or {@code x}/{@code y}; {@code governorHeight} stands for a new governor. */
+    record StagedCity(int index,
+                      String name,
+                      int area,
+                      long population,
+                      LocalDate establishmentDate,
+                      boolean capital,
+                      Integer metersAboveSeaLevel,
+                      Integer telephoneCode,
+                      String climate,
+                      String government,
+                      Long coordinatesId,
+                      Float x,
+                      Float y,
+                      Long governorId,
+                      Float governorHeight) {}
+
+    record StagedCapitalViolation(int index, boolean governorMissing) {}
+}
@@ -0,0 +1,608 @@
+package ru.itmo.repository;
+
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.Session;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.itmo.analytics.CityAnalyticsRow;
+import ru.itmo.domain.City;
+import ru.itmo.domain.Coordinates;
+import ru.itmo.domain.Human;
+import ru.itmo.specification.CitySpecifications;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+public class CityRepositoryImpl implements CityRepositoryCustom {
+
+    private static final String FETCH_GRAPH_HINT = "jakarta.persistence.fetchgraph";
+    private static final String WITH_RELATIONS_GRAPH = "City.withRelations";
+
+    private static final String DELETE_CITIES_SQL = """
+            DELETE FROM city WHERE id = ANY(?)
+            RETURNING id, governor_id, coordinates_id
+            """;
+
+    // candidates come from the cities deleted just before in the same transaction
+    private static final String DELETE_ORPHAN_GOVERNORS_SQL = """
+            DELETE FROM human h WHERE h.id = ANY(?)
+              AND NOT EXISTS (SELECT 1 FROM city c WHERE c.governor_id = h.id)
+            RETURNING h.id
+            """;
+
+    private static final String DELETE_ORPHAN_COORDINATES_SQL = """
+            DELETE FROM coordinates co WHERE co.id = ANY(?)
+              AND NOT EXISTS (SELECT 1 FROM city c WHERE c.coordinates_id = co.id)
+            RETURNING co.id
+            """;
+
+    private static final String EXISTING_COORDINATES_SQL = "SELECT id FROM coordinates WHERE id = ANY(?)";
+    private static final String EXISTING_HUMAN_HEIGHTS_SQL = "SELECT id, height FROM human WHERE id = ANY(?)";
+    private static final String EXISTING_NAMES_SQL = "SELECT lower(name) FROM city WHERE lower(name) = ANY(?)";
+
+    private static final int ANY_ARRAY_CHUNK = 10_000;
+
+    // per-transaction copy of the setup.sql template: concurrent imports never share rows
+    private static final String CREATE_STAGE_SQL =
+            "CREATE TEMP TABLE IF NOT EXISTS city_import_stage_tx (LIKE city_import_stage) ON COMMIT DROP";
+
+    private static final String COPY_STAGE_SQL = """
+            COPY city_import_stage_tx (rn, name, area, population, establishment_date, capital,
+                                       meters_above_sea_level, telephone_code, climate, government,
+                                       coordinates_id, x, y, governor_id, governor_height)
+            FROM STDIN
+            """;
+
+    private static final String STAGED_CAPITAL_VIOLATIONS_SQL = """
+            SELECT s.rn, (s.governor_id IS NULL AND s.governor_height IS NULL)
+            FROM city_import_stage_tx s
+            LEFT JOIN human h ON h.id = s.governor_id
+            WHERE s.capital
+              AND (coalesce(h.height, s.governor_height) IS NULL OR coalesce(h.height, s.governor_height) < ?)
+            ORDER BY s.rn
+            """;
+
+    // New ids come in blocks of 50, the INCREMENT BY of the sequences and the allocationSize of the
+    // entities: one nextval per block reserves lo..lo+49 (pooled-lo), and the k-th row takes
+    // lo[k / 50] + k % 50. Ids reserved for pairs that turn out to exist already are skipped.
+    private static final String INSERT_STAGED_COORDINATES_SQL = """
+            WITH numbered AS (
+                SELECT x, y, row_number() OVER (ORDER BY x, y) - 1 AS k
+                FROM (SELECT DISTINCT x, y FROM city_import_stage_tx WHERE coordinates_id IS NULL) p
+            ), blocks AS (
+                SELECT row_number() OVER () - 1 AS b, lo
+                FROM (SELECT nextval('coordinates_id_seq') AS lo
+                      FROM generate_series(1, (SELECT ceil(count(*) / 50.0)::int FROM numbered))) r
+            )
+            INSERT INTO coordinates (id, x, y)
+            SELECT bl.lo + n.k % 50, n.x, n.y
+            FROM numbered n JOIN blocks bl ON bl.b = n.k / 50
+            ORDER BY n.x, n.y
+            ON CONFLICT (x, y) DO NOTHING
+            """;
+
+    private static final String RESOLVE_STAGED_COORDINATES_SQL = """
+            UPDATE city_import_stage_tx s SET coordinates_id = co.id
+            FROM coordinates co
+            WHERE s.coordinates_id IS NULL AND co.x = s.x AND co.y = s.y
+            """;
+
+    private static final String ASSIGN_STAGED_CITY_IDS_SQL = """
+            WITH numbered AS (
+                SELECT rn, row_number() OVER (ORDER BY rn) - 1 AS k FROM city_import_stage_tx
+            ), blocks AS (
+                SELECT row_number() OVER () - 1 AS b, lo
+                FROM (SELECT nextval('city_id_seq') AS lo
+                      FROM generate_series(1, (SELECT ceil(count(*) / 50.0)::int FROM numbered))) r
+            )
+            UPDATE city_import_stage_tx s SET city_id = bl.lo + n.k % 50
+            FROM numbered n JOIN blocks bl ON bl.b = n.k / 50
+            WHERE s.rn = n.rn
+            """;
+
+    private static final String ASSIGN_STAGED_GOVERNOR_IDS_SQL = """
+            WITH numbered AS (
+                SELECT rn, row_number() OVER (ORDER BY rn) - 1 AS k
+                FROM city_import_stage_tx WHERE governor_height IS NOT NULL
+            ), blocks AS (
+                SELECT row_number() OVER () - 1 AS b, lo
+                FROM (SELECT nextval('human_id_seq') AS lo
+                      FROM generate_series(1, (SELECT ceil(count(*) / 50.0)::int FROM numbered))) r
+            )
+            UPDATE city_import_stage_tx s SET governor_id = bl.lo + n.k % 50
+            FROM numbered n JOIN blocks bl ON bl.b = n.k / 50
+            WHERE s.rn = n.rn
+            """;
+
+    private static final String INSERT_STAGED_GOVERNORS_SQL = """
+            INSERT INTO human (id, height)
+            SELECT governor_id, governor_height FROM city_import_stage_tx WHERE governor_height IS NOT NULL
+            """;
+
+    private static final String INSERT_STAGED_CITIES_SQL = """
+            INSERT INTO city (id, name, area, population, establishment_date, capital, meters_above_sea_level,
+                              telephone_code, climate, government, coordinates_id, governor_id)
+            SELECT city_id, name, area, population, establishment_date, capital, meters_above_sea_level,
+                   telephone_code, climate::climate, government::government, coordinates_id, governor_id
+            FROM city_import_stage_tx
+            ORDER BY rn
+            """;
+
+    private static final String STAGED_ANALYTICS_ROWS_SQL = """
+            SELECT s.city_id, s.name, s.telephone_code, s.meters_above_sea_level, s.area,
+                   s.establishment_date, co.id, co.x, co.y
+            FROM city_import_stage_tx s
+            JOIN coordinates co ON co.id = s.coordinates_id
+            ORDER BY s.rn
+            """;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public List<City> findSlice(Specification<City> spec, Sort sort, long offset, int limit) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<City> cq = cb.createQuery(City.class);
+        Root<City> root = cq.from(City.class);
+        cq.select(root);
+
+        if (spec != null) {
+            Predicate p = spec.toPredicate(root, cq, cb);
+            if (p != null) cq.where(p);
+        }
+        if (sort != null && sort.isSorted()) {
+            cq.orderBy(toOrders(sort, root, cb));
+        }
+
+        return em.createQuery(cq)
+                .setHint(FETCH_GRAPH_HINT, em.getEntityGraph(WITH_RELATIONS_GRAPH))
+                .setFirstResult(Math.toIntExact(offset))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public List<CityRow> findRows(Specification<City> spec, Sort sort, long offset, int limit) {
+        return rows(spec, null, sort, offset, limit);
+    }
+
+    @Override
+    public List<CityRow> findRowsBySimilarName(Specification<City> spec, String name, Sort sort, long offset, int limit) {
+        return rows(spec, name, sort, offset, limit);
+    }
+
+    private List<CityRow> rows(Specification<City> spec, String similarName, Sort sort, long offset, int limit) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<CityRow> cq = cb.createQuery(CityRow.class);
+        Root<City> root = cq.from(City.class);
+        Join<City, Coordinates> coords = root.join("coordinates", JoinType.LEFT);
+        Join<City, Human> governor = root.join("governor", JoinType.LEFT);
+
+        cq.select(cb.construct(CityRow.class,
+                root.get("id"),
+                root.get("name"),
+                root.get("creationDate"),
+                root.get("area"),
+                root.get("population"),
+                root.get("establishmentDate"),
+                root.get("capital"),
+                root.get("metersAboveSeaLevel"),
+                root.get("telephoneCode"),
+                root.get("climate"),
+                root.get("government"),
+                coords.get("id"),
+                coords.get("x"),
+                coords.get("y"),
+                governor.get("id"),
+                governor.get("height"),
+                root.get("version")));
+
+        if (spec != null) {
+            Predicate p = spec.toPredicate(root, cq, cb);
+            if (p != null) cq.where(p);
+        }
+        List<Order> orders = new ArrayList<>();
+        if (similarName != null) {
+            orders.add(cb.desc(CitySpecifications.similarity(root, cb, "name", similarName)));
+        }
+        if (sort != null && sort.isSorted()) {
+            orders.addAll(toOrders(sort, root, cb));
+        }
+        cq.orderBy(orders);
+
+        return em.createQuery(cq)
+                .setFirstResult(Math.toIntExact(offset))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public List<Long> findIds(Specification<City> spec, int limit) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+        Root<City> root = cq.from(City.class);
+        cq.select(root.get("id"));
+
+        if (spec != null) {
+            Predicate p = spec.toPredicate(root, cq, cb);
+            if (p != null) cq.where(p);
+        }
+        cq.orderBy(cb.asc(root.get("id")));
+
+        return em.createQuery(cq)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public BulkDeleted deleteCascading(Collection<Long> cityIds, boolean orphanGovernors, boolean orphanCoordinates) {
+        if (cityIds.isEmpty()) return new BulkDeleted(List.of(), List.of(), List.of());
+
+        em.flush();
+        BulkDeleted out = em.unwrap(Session.class).doReturningWork(conn -> {
+            List<Long> cities = new ArrayList<>(cityIds.size());
+            Set<Long> governorCandidates = new LinkedHashSet<>();
+            Set<Long> coordinatesCandidates = new LinkedHashSet<>();
+
+            try (PreparedStatement ps = conn.prepareStatement(DELETE_CITIES_SQL)) {
+                Array ids = conn.createArrayOf("bigint", cityIds.toArray());
+                try {
+                    ps.setArray(1, ids);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            cities.add(rs.getLong(1));
+                            long governorId = rs.getLong(2);
+                            if (!rs.wasNull()) governorCandidates.add(governorId);
+                            coordinatesCandidates.add(rs.getLong(3));
+                        }
+                    }
+                } finally {
+                    ids.free();
+                }
+            }
+
+            List<Long> governors = orphanGovernors
+                    ? deleteReturningIds(conn, DELETE_ORPHAN_GOVERNORS_SQL, governorCandidates)
+                    : List.of();
+            List<Long> coordinates = orphanCoordinates
+                    ? deleteReturningIds(conn, DELETE_ORPHAN_COORDINATES_SQL, coordinatesCandidates)
+                    : List.of();
+            return new BulkDeleted(cities, governors, coordinates);
+        });
+
+        evict(City.class, out.cityIds());
+        evict(Human.class, out.governorIds());
+        evict(Coordinates.class, out.coordinatesIds());
+        return out;
+    }
+
+    @Override
+    public ExistingReferences findExisting(Collection<Long> coordinatesIds, Collection<Long> governorIds,
+                                           Collection<String> lowerNames) {
+        return em.unwrap(Session.class).doReturningWork(conn -> new ExistingReferences(
+                selectExisting(conn, EXISTING_COORDINATES_SQL, "bigint", coordinatesIds, Long.class),
+                selectHeights(conn, governorIds),
+                selectExisting(conn, EXISTING_NAMES_SQL, "text", lowerNames, String.class)
+        ));
+    }
+
+    @Override
+    public int copyToStage(CopySource source) {
+        em.flush();
+        return em.unwrap(Session.class).doReturningWork(conn -> {
+            try (Statement st = conn.createStatement()) {
+                st.execute(CREATE_STAGE_SQL);
+            }
+            CopyIn copyIn = conn.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_STAGE_SQL);
+            StageWriter writer = new StageWriter(copyIn);
+            try {
+                source.feed(writer::write);
+                writer.flush();
+                return Math.toIntExact(copyIn.endCopy());
+            } catch (StageWriteFailed e) {
+                throw e.getCause();
+            } finally {
+                if (copyIn.isActive()) copyIn.cancelCopy();
+            }
+        });
+    }
+
+    @Override
+    public List<StagedCapitalViolation> findStagedCapitalViolations(float minGovernorHeight) {
+        return em.unwrap(Session.class).doReturningWork(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(STAGED_CAPITAL_VIOLATIONS_SQL)) {
+                ps.setFloat(1, minGovernorHeight);
+                List<StagedCapitalViolation> out = new ArrayList<>();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) out.add(new StagedCapitalViolation(rs.getInt(1), rs.getBoolean(2)));
+                }
+                return out;
+            }
+        });
+    }
+
+    @Override
+    public List<CityAnalyticsRow> insertStaged() {
+        return em.unwrap(Session.class).doReturningWork(conn -> {
+            try (Statement st = conn.createStatement()) {
+                st.executeUpdate(INSERT_STAGED_COORDINATES_SQL);
+                st.executeUpdate(RESOLVE_STAGED_COORDINATES_SQL);
+                st.executeUpdate(ASSIGN_STAGED_CITY_IDS_SQL);
+                st.executeUpdate(ASSIGN_STAGED_GOVERNOR_IDS_SQL);
+                st.executeUpdate(INSERT_STAGED_GOVERNORS_SQL);
+                st.executeUpdate(INSERT_STAGED_CITIES_SQL);
+
+                List<CityAnalyticsRow> rows = new ArrayList<>();
+                try (ResultSet rs = st.executeQuery(STAGED_ANALYTICS_ROWS_SQL)) {
+                    while (rs.next()) {
+                        rows.add(new CityAnalyticsRow(
+                                rs.getLong(1),
+                                rs.getString(2),
+                                rs.getObject(3, Integer.class),
+                                rs.getObject(4, Integer.class),
+                                rs.getInt(5),
+                                rs.getDate(6),
+                                rs.getLong(7),
+                                rs.getFloat(8),
+                                rs.getFloat(9)));
+                    }
+                }
+                st.execute("DROP TABLE city_import_stage_tx");
+                return rows;
+            }
+        });
+    }
+
+    /** Encodes staged rows in COPY text format and sends them in blocks of about 64 KB. */
+    private static final class StageWriter {
+        private static final int FLUSH_CHARS = 64 * 1024;
+
+        private final CopyIn copyIn;
+        private final StringBuilder buf = new StringBuilder(FLUSH_CHARS + 1024);
+
+        StageWriter(CopyIn copyIn) {
+            this.copyIn = copyIn;
+        }
+
+        void write(StagedCity c) {
+            buf.append(c.index()).append('\t');
+            appendText(c.name()).append('\t');
+            buf.append(c.area()).append('\t');
+            buf.append(c.population()).append('\t');
+            append(c.establishmentDate()).append('\t');
+            buf.append(c.capital() ? 't' : 'f').append('\t');
+            append(c.metersAboveSeaLevel()).append('\t');
+            append(c.telephoneCode()).append('\t');
+            appendText(c.climate()).append('\t');
+            appendText(c.government()).append('\t');
+            append(c.coordinatesId()).append('\t');
+            append(c.x()).append('\t');
+            append(c.y()).append('\t');
+            append(c.governorId()).append('\t');
+            append(c.governorHeight()).append('\n');
+            if (buf.length() >= FLUSH_CHARS) flush();
+        }
+
+        void flush() {
+            if (buf.isEmpty()) return;
+            byte[] bytes = buf.toString().getBytes(StandardCharsets.UTF_8);
+            buf.setLength(0);
+            try {
+                copyIn.writeToCopy(bytes, 0, bytes.length);
+            } catch (SQLException e) {
+                throw new StageWriteFailed(e);
+            }
+        }
+
+        private StringBuilder append(Object value) {
+            return value == null ? buf.append("\\N") : buf.append(value);
+        }
+
+        private StringBuilder appendText(String value) {
+            if (value == null) return buf.append("\\N");
+            for (int i = 0; i < value.length(); i++) {
+                char ch = value.charAt(i);
+                switch (ch) {
+                    case '\\' -> buf.append("\\\\");
+                    case '\t' -> buf.append("\\t");
+                    case '\n' -> buf.append("\\n");
+                    case '\r' -> buf.append("\\r");
+                    default -> buf.append(ch);
+                }
+            }
+            return buf;
+        }
+    }
+
+    /** Carries a COPY write failure out of the caller's feed loop. */
+    private static final class StageWriteFailed extends RuntimeException {
+        StageWriteFailed(SQLException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized SQLException getCause() {
+            return (SQLException) super.getCause();
+        }
+    }
+
+    private static <T> Set<T> selectExisting(Connection conn, String sql, String sqlType,
+                                             Collection<T> values, Class<T> type) throws SQLException {
+        Set<T> out = new HashSet<>();
+        selectByArray(conn, sql, sqlType, values, rs -> out.add(rs.getObject(1, type)));
+        return out;
+    }
+
+    private static Map<Long, Float> selectHeights(Connection conn, Collection<Long> humanIds) throws SQLException {
+        Map<Long, Float> out = new HashMap<>();
+        selectByArray(conn, EXISTING_HUMAN_HEIGHTS_SQL, "bigint", humanIds, rs -> out.put(rs.getLong(1), rs.getFloat(2)));
+        return out;
+    }
+
+    /** Runs {@code sql} with {@code values} bound as its {@code = ANY(?)} array, in chunks. */
+    private static void selectByArray(Connection conn, String sql, String sqlType,
+                                      Collection<?> values, RowReader reader) throws SQLException {
+        if (values.isEmpty()) return;
+        List<?> all = new ArrayList<>(values);
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int from = 0; from < all.size(); from += ANY_ARRAY_CHUNK) {
+                List<?> part = all.subList(from, Math.min(from + ANY_ARRAY_CHUNK, all.size()));
+                Array arr = conn.createArrayOf(sqlType, part.toArray());
+                try {
+                    ps.setArray(1, arr);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) reader.read(rs);
+                    }
+                } finally {
+                    arr.free();
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowReader {
+        void read(ResultSet rs) throws SQLException;
+    }
+
+    private static List<Long> deleteReturningIds(Connection conn, String sql, Collection<Long> candidates) throws SQLException {
+        if (candidates.isEmpty()) return List.of();
+        Array ids = conn.createArrayOf("bigint", candidates.toArray());
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setArray(1, ids);
+            List<Long> out = new ArrayList<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) out.add(rs.getLong(1));
+            }
+            return out;
+        } finally {
+            ids.free();
+        }
+    }
+
+    @Override
+    public List<PatchedCity> patchAll(Collection<Long> cityIds, CityPatch patch, float minGovernorHeight) {
+        if (cityIds.isEmpty() || patch.isEmpty()) return List.of();
+
+        StringBuilder sql = new StringBuilder("UPDATE city c SET version = c.version + 1");
+        List<Object> params = new ArrayList<>();
+        if (patch.climate() != null) {
+            sql.append(", climate = CAST(? AS climate)");
+            params.add(patch.climate().name());
+        }
+        if (patch.clearGovernment()) {
+            sql.append(", government = NULL");
+        } else if (patch.government() != null) {
+            sql.append(", government = CAST(? AS government)");
+            params.add(patch.government().name());
+        }
+        if (patch.clearGovernor()) {
+            sql.append(", governor_id = NULL");
+        } else if (patch.governorId() != null) {
+            sql.append(", governor_id = ?");
+            params.add(patch.governorId());
+        }
+        if (patch.capital() != null) {
+            sql.append(", capital = ?");
+            params.add(patch.capital());
+        }
+        if (patch.telephoneCode() != null) {
+            sql.append(", telephone_code = ?");
+            params.add(patch.telephoneCode());
+        }
+        if (patch.metersAboveSeaLevel() != null) {
+            sql.append(", meters_above_sea_level = ?");
+            params.add(patch.metersAboveSeaLevel());
+        }
+        // RETURNING sees the new values, so the last two columns are the capital rule. The governor is
+        // looked up there rather than joined in FROM, where it would be matched against the old governor_id.
+        sql.append("""
+                 FROM coordinates co
+                WHERE co.id = c.coordinates_id AND c.id = ANY(?)
+                RETURNING c.id, c.name, c.telephone_code, c.meters_above_sea_level, c.area,
+                          c.establishment_date, co.id, co.x, co.y,
+                          (c.capital AND c.governor_id IS NULL),
+                          (c.capital AND (SELECT h.height FROM human h WHERE h.id = c.governor_id) < ?)
+                """);
+
+        em.flush();
+        List<PatchedCity> out = em.unwrap(Session.class).doReturningWork(conn -> {
+            Array ids = conn.createArrayOf("bigint", cityIds.toArray());
+            try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+                int i = 1;
+                for (Object p : params) ps.setObject(i++, p);
+                ps.setArray(i++, ids);
+                ps.setFloat(i, minGovernorHeight);
+
+                List<PatchedCity> rows = new ArrayList<>(cityIds.size());
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        CityAnalyticsRow row = new CityAnalyticsRow(
+                                rs.getLong(1),
+                                rs.getString(2),
+                                rs.getObject(3, Integer.class),
+                                rs.getObject(4, Integer.class),
+                                rs.getInt(5),
+                                rs.getDate(6),
+                                rs.getLong(7),
+                                rs.getFloat(8),
+                                rs.getFloat(9));
+                        CapitalViolation violation = rs.getBoolean(10) ? CapitalViolation.GOVERNOR_MISSING
+                                : rs.getBoolean(11) ? CapitalViolation.GOVERNOR_TOO_SHORT
+                                : null;
+                        rows.add(new PatchedCity(row, violation));
+                    }
+                }
+                return rows;
+            } finally {
+                ids.free();
+            }
+        });
+
+        evict(City.class, out.stream().map(p -> p.row().id()).toList());
+        return out;
+    }
+
+    /**
+     * Evicts now and once more after the transaction completes, so a reader that cached
+     * the old row in between does not keep it.
+     */
+    private void evict(Class<?> type, List<Long> ids) {
+        if (ids.isEmpty()) return;
+        Cache cache = em.getEntityManagerFactory().getCache();
+        ids.forEach(id -> cache.evict(type, id));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override public void afterCompletion(int status) { ids.forEach(id -> cache.evict(type, id)); }
+            });
+        }
+    }
+}
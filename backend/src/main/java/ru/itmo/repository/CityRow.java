@@ -0,0 +1,54 @@
+package ru.itmo.repository;
+
+import ru.itmo.domain.Climate;
+import ru.itmo.domain.Government;
+import ru.itmo.dto.CityDto;
+import ru.itmo.dto.CoordinatesDto;
+import ru.itmo.dto.HumanDto;
+
+import java.time.LocalDate;
+import java.util.Date;
+
+/**
+ * Flat read-only projection of a city joined with its coordinates and governor,
+ * selected straight from the query without hydrating managed entities.
+ */
+public record CityRow(
+        Long id,
+        String name,
+        LocalDate creationDate,
+        Integer area,
+        Long population,
+        Date establishmentDate,
+        Boolean capital,
+        Integer metersAboveSeaLevel,
+        Integer telephoneCode,
+        Climate climate,
+        Government government,
+        Long coordinatesId,
+        Float x,
+        Float y,
+        Long governorId,
+        Float governorHeight,
+        Long version
+) {
+
+    public CityDto toDto() {
+        CityDto dto = new CityDto();
+        dto.setId(id);
+        dto.setName(name);
+        dto.setArea(area);
+        dto.setPopulation(population);
+        dto.setCapital(Boolean.TRUE.equals(capital));
+        dto.setMetersAboveSeaLevel(metersAboveSeaLevel);
+        dto.setTelephoneCode(telephoneCode);
+        dto.setClimate(climate != null ? climate.name() : null);
+        dto.setGovernment(government != null ? government.name() : null);
+        dto.setCreationDate(creationDate);
+        dto.setEstablishmentDate(establishmentDate);
+        dto.setVersion(version);
+        dto.setCoordinates(coordinatesId != null ? new CoordinatesDto(coordinatesId, x, y) : null);
+        dto.setGovernor(governorId != null ? new HumanDto(governorId, governorHeight) : null);
+        return dto;
+    }
+}
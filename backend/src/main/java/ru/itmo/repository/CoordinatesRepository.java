@@ -11,7 +11,7 @@ import org.springframework.lang.Nullable;
 
 import java.util.List;
 
-public interface CoordinatesRepository extends JpaRepository<Coordinates, Long> {
+public interface CoordinatesRepository extends JpaRepository<Coordinates, Long>, CoordinatesRepositoryCustom {
 
 
     Page<Coordinates> findAll(@Nullable Specification<Coordinates> spec, Pageable pageable);
@@ -22,8 +22,5 @@ public interface CoordinatesRepository extends JpaRepository<Coordinates, Long>
     @Query("SELECT c.id FROM City c WHERE c.coordinates.id = :coordId")
     List<Long> findCityIdsByCoordinatesId(@Param("coordId") Long coordId);
 
-    boolean existsByXAndY(Float x, Float y);
-
-    boolean existsByXAndYAndIdNot(Float x, Float y, Long id);
 
 }
@@ -0,0 +1,24 @@
+package ru.itmo.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface CoordinatesRepositoryCustom {
+
+    /**
+     * Inserts every missing (x, y) pair with INSERT ... ON CONFLICT DO NOTHING and returns the ids
+     * of all of them, existing or new. Pairs must be distinct. Existing rows are only read, not
+     * locked, and inserts go in (x, y) order, so overlapping concurrent calls cannot deadlock.
+     */
+    List<UpsertedPair> upsertPairs(Collection<Pair> pairs);
+
+    record Pair(float x, float y) {
+        public Pair {
+            // PostgreSQL treats -0.0 and 0.0 as equal; keep Java equality in line with the unique index
+            x = x + 0.0f;
+            y = y + 0.0f;
+        }
+    }
+
+    record UpsertedPair(Long id, Pair pair, boolean inserted) {}
+}
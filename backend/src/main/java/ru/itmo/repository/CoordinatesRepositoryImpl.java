@@ -0,0 +1,89 @@
+package ru.itmo.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class CoordinatesRepositoryImpl implements CoordinatesRepositoryCustom {
+
+    private static final String INSERT_MISSING_SQL = """
+            INSERT INTO coordinates (x, y)
+            SELECT x, y FROM unnest(?::real[], ?::real[]) WITH ORDINALITY AS t(x, y, n)
+            ORDER BY n
+            ON CONFLICT (x, y) DO NOTHING
+            RETURNING id, x, y
+            """;
+
+    // a separate statement: under READ COMMITTED it also sees pairs a concurrent insert committed meanwhile
+    private static final String SELECT_EXISTING_SQL = """
+            SELECT co.id, co.x, co.y
+            FROM coordinates co
+            JOIN unnest(?::real[], ?::real[]) AS t(x, y) ON co.x = t.x AND co.y = t.y
+            """;
+
+    private static final Comparator<Pair> PAIR_ORDER = Comparator.comparing(Pair::x).thenComparing(Pair::y);
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public List<UpsertedPair> upsertPairs(Collection<Pair> pairs) {
+        if (pairs.isEmpty()) return List.of();
+
+        List<Pair> sorted = new ArrayList<>(pairs);
+        sorted.sort(PAIR_ORDER);
+
+        em.flush();
+        return em.unwrap(Session.class).doReturningWork(conn -> {
+            List<UpsertedPair> out = new ArrayList<>(sorted.size());
+            Set<Pair> found = new HashSet<>();
+            for (UpsertedPair p : queryPairs(conn, INSERT_MISSING_SQL, sorted, true)) {
+                out.add(p);
+                found.add(p.pair());
+            }
+            if (found.size() < sorted.size()) {
+                List<Pair> existing = sorted.stream().filter(p -> !found.contains(p)).toList();
+                out.addAll(queryPairs(conn, SELECT_EXISTING_SQL, existing, false));
+            }
+            return out;
+        });
+    }
+
+    private static List<UpsertedPair> queryPairs(Connection conn, String sql, List<Pair> pairs, boolean inserted) throws SQLException {
+        Float[] xs = new Float[pairs.size()];
+        Float[] ys = new Float[pairs.size()];
+        for (int i = 0; i < pairs.size(); i++) {
+            xs[i] = pairs.get(i).x();
+            ys[i] = pairs.get(i).y();
+        }
+
+        Array xArr = conn.createArrayOf("float4", xs);
+        Array yArr = conn.createArrayOf("float4", ys);
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setArray(1, xArr);
+            ps.setArray(2, yArr);
+            List<UpsertedPair> out = new ArrayList<>(pairs.size());
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    out.add(new UpsertedPair(rs.getLong(1), new Pair(rs.getFloat(2), rs.getFloat(3)), inserted));
+                }
+            }
+            return out;
+        } finally {
+            xArr.free();
+            yArr.free();
+        }
+    }
+}
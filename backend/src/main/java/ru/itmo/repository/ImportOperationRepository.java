@@ -1,12 +1,27 @@
 package ru.itmo.repository;
 
 
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.itmo.domain.ImportOperation;
+import ru.itmo.domain.ImportStatus;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface ImportOperationRepository extends JpaRepository<ImportOperation, Long> {
     Page<ImportOperation> findAllByOrderByStartedAtDesc(Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from ImportOperation o where o.id = :id")
+    Optional<ImportOperation> findByIdForUpdate(@Param("id") Long id);
+
+    List<ImportOperation> findByStatusIn(Collection<ImportStatus> statuses);
 }
 
@@ -0,0 +1,137 @@
+package ru.itmo.retry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Retries an action on 40001/40P01 with decorrelated jitter backoff
+ * (sleep = min(cap, random(base, previous * 3))) and keeps per-operation counters.
+ */
+@Component
+public class ConflictRetryExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(ConflictRetryExecutor.class);
+
+    private static final String SERIALIZATION_FAILURE = "40001";
+    private static final String DEADLOCK_DETECTED = "40P01";
+
+    private final int defaultMaxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    public ConflictRetryExecutor(Environment env) {
+        this.defaultMaxAttempts = Integer.parseInt(env.getProperty("retry.conflict.maxAttempts", "3"));
+        this.baseDelayMillis = Long.parseLong(env.getProperty("retry.conflict.baseDelayMillis", "20"));
+        this.maxDelayMillis = Long.parseLong(env.getProperty("retry.conflict.maxDelayMillis", "1000"));
+    }
+
+    public <T> T execute(String operation, Supplier<T> action) {
+        return execute(operation, 0, action);
+    }
+
+    public <T> T execute(String operation, int maxAttempts, Supplier<T> action) {
+        try {
+            return executeChecked(operation, maxAttempts, action::get);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    <T> T executeChecked(String operation, int maxAttempts, Attempt<T> action) throws Throwable {
+        int attempts = maxAttempts > 0 ? maxAttempts : defaultMaxAttempts;
+        Counters c = counters.computeIfAbsent(operation, k -> new Counters());
+        c.calls.increment();
+
+        long sleep = baseDelayMillis;
+        for (int attempt = 1; ; attempt++) {
+            c.attempts.increment();
+            try {
+                T result = action.run();
+                if (attempt > 1) c.recovered.increment();
+                return result;
+            } catch (Throwable ex) {
+                String state = conflictState(ex);
+                if (state == null) throw ex;
+                if (attempt >= attempts) {
+                    c.giveUps.increment();
+                    log.warn("[retry] {} gave up after {} attempts (sqlState={})", operation, attempt, state);
+                    throw ex;
+                }
+                c.retries.increment();
+                sleep = Math.min(maxDelayMillis, ThreadLocalRandom.current().nextLong(baseDelayMillis, Math.max(baseDelayMillis, sleep * 3) + 1));
+                log.debug("[retry] {} attempt {} failed (sqlState={}), retrying in {} ms", operation, attempt, state, sleep);
+                try {
+                    Thread.sleep(sleep);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    /**
+     * SQLSTATE of a retryable conflict anywhere in the cause chain, or null.
+     */
+    public static String conflictState(Throwable ex) {
+        for (Throwable t = ex; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof SQLException sql) {
+                String state = sql.getSQLState();
+                if (SERIALIZATION_FAILURE.equals(state) || DEADLOCK_DETECTED.equals(state)) return state;
+            }
+        }
+        return null;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> ops = new TreeMap<>();
+        counters.forEach((op, c) -> {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("calls", c.calls.sum());
+            m.put("attempts", c.attempts.sum());
+            m.put("retries", c.retries.sum());
+            m.put("recovered", c.recovered.sum());
+            m.put("giveUps", c.giveUps.sum());
+            ops.put(op, m);
+        });
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("maxAttempts", defaultMaxAttempts);
+        out.put("baseDelayMillis", baseDelayMillis);
+        out.put("maxDelayMillis", maxDelayMillis);
+        out.put("operations", ops);
+        return out;
+    }
+
+    public void reset() {
+        counters.clear();
+    }
+
+    @FunctionalInterface
+    interface Attempt<T> {
+        T run() throws Throwable;
+    }
+
+    private static final class Counters {
+        final LongAdder calls = new LongAdder();
+        final LongAdder attempts = new LongAdder();
+        final LongAdder retries = new LongAdder();
+        final LongAdder recovered = new LongAdder();
+        final LongAdder giveUps = new LongAdder();
+    }
+}
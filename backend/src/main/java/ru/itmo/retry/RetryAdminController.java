@@ -0,0 +1,30 @@
+package ru.itmo.retry;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/retry")
+public class RetryAdminController {
+
+    private final ConflictRetryExecutor executor;
+
+    public RetryAdminController(ConflictRetryExecutor executor) {
+        this.executor = executor;
+    }
+
+    @GetMapping
+    public Map<String, Object> stats() {
+        return executor.stats();
+    }
+
+    @PostMapping("/reset")
+    public Map<String, Object> reset() {
+        executor.reset();
+        return executor.stats();
+    }
+}
@@ -0,0 +1,20 @@
+package ru.itmo.retry;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Re-runs the method when its transaction fails with a serialization failure (40001)
+ * or a deadlock (40P01). The retry advice is ordered outside {@code @Transactional},
+ * so every attempt gets a fresh transaction; inside an already running transaction
+ * the method is invoked once.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+
+    /** Total attempts including the first one; 0 means retry.conflict.maxAttempts. */
+    int maxAttempts() default 0;
+}
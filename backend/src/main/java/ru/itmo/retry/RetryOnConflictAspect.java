@@ -0,0 +1,34 @@
+package ru.itmo.retry;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Runs before the transaction interceptor (which has the lowest precedence),
+ * so each retry starts a new transaction.
+ */
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 100)
+public class RetryOnConflictAspect {
+
+    private final ConflictRetryExecutor executor;
+
+    public RetryOnConflictAspect(ConflictRetryExecutor executor) {
+        this.executor = executor;
+    }
+
+    @Around("@annotation(retry)")
+    public Object retry(ProceedingJoinPoint pjp, RetryOnConflict retry) throws Throwable {
+        // an outer transaction is already doomed by the failure; let its owner decide
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return pjp.proceed();
+        }
+        return executor.executeChecked(pjp.getSignature().toShortString(), retry.maxAttempts(), pjp::proceed);
+    }
+}
@@ -0,0 +1,131 @@
+package ru.itmo.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import ru.itmo.dto.CityDto;
+import ru.itmo.exception.ImportValidationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Bean-validation plus structural checks for a list of incoming cities,
+ * reported per item; shared by the file import and the batch endpoint.
+ */
+@Component
+public class CityDtoValidator {
+
+    private static final int SEQUENTIAL_THRESHOLD = 64;
+
+    private final Validator validator;
+    private final ForkJoinPool pool;
+
+    public CityDtoValidator(Validator validator, Environment env) {
+        this.validator = validator;
+        int parallelism = Integer.parseInt(env.getProperty("import.validation.parallelism",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        this.pool = new ForkJoinPool(Math.max(1, parallelism));
+    }
+
+    public List<ImportValidationException.ItemError> validateAll(List<CityDto> dtos) {
+        return validateAll(dtos, 0);
+    }
+
+    /**
+     * Reported indexes are offset by {@code baseIndex}, for chunks of a larger file.
+     * Large lists are split across the validation pool; errors always come back in
+     * index order, exactly as a sequential pass would report them.
+     */
+    public List<ImportValidationException.ItemError> validateAll(List<CityDto> dtos, int baseIndex) {
+        if (dtos.size() < SEQUENTIAL_THRESHOLD) {
+            return validateRange(dtos, baseIndex, 0, dtos.size());
+        }
+        return pool.invoke(new RangeTask(dtos, baseIndex, 0, dtos.size()));
+    }
+
+    private List<ImportValidationException.ItemError> validateRange(List<CityDto> dtos, int baseIndex, int from, int to) {
+        List<ImportValidationException.ItemError> errors = new ArrayList<>();
+
+        for (int n = from; n < to; n++) {
+            CityDto dto = dtos.get(n);
+            int i = baseIndex + n;
+
+            if (dto == null) {
+                errors.add(new ImportValidationException.ItemError(i, "$", "Запись равна null"));
+                continue;
+            }
+
+            addViolations(errors, i, validator.validate(dto));
+
+            if (dto.getCoordinates() != null) {
+                addViolations(errors, i, validator.validate(dto.getCoordinates()));
+            }
+            if (dto.getGovernor() != null) {
+                addViolations(errors, i, validator.validate(dto.getGovernor()));
+            }
+
+            if ((dto.getCoordinatesId() == null) == (dto.getCoordinates() == null)) {
+                errors.add(new ImportValidationException.ItemError(
+                        i, "coordinates",
+                        "Укажи либо coordinatesId, либо coordinates (ровно одно)."
+                ));
+            }
+            if (dto.getGovernorId() != null && dto.getGovernor() != null) {
+                errors.add(new ImportValidationException.ItemError(
+                        i, "governor",
+                        "Укажи либо governorId, либо governor (не оба)."
+                ));
+            }
+        }
+
+        return errors;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private final class RangeTask extends RecursiveTask<List<ImportValidationException.ItemError>> {
+        private final List<CityDto> dtos;
+        private final int baseIndex;
+        private final int from;
+        private final int to;
+
+        RangeTask(List<CityDto> dtos, int baseIndex, int from, int to) {
+            this.dtos = dtos;
+            this.baseIndex = baseIndex;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<ImportValidationException.ItemError> compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                return validateRange(dtos, baseIndex, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            RangeTask left = new RangeTask(dtos, baseIndex, from, mid);
+            left.fork();
+            List<ImportValidationException.ItemError> right = new RangeTask(dtos, baseIndex, mid, to).compute();
+            List<ImportValidationException.ItemError> merged = new ArrayList<>(left.join());
+            merged.addAll(right);
+            return merged;
+        }
+    }
+
+    private void addViolations(List<ImportValidationException.ItemError> errors,
+                               int index,
+                               Set<? extends ConstraintViolation<?>> violations) {
+        for (ConstraintViolation<?> v : violations) {
+            String field = v.getPropertyPath() != null ? v.getPropertyPath().toString() : "$";
+            errors.add(new ImportValidationException.ItemError(index, field, v.getMessage()));
+        }
+    }
+}
@@ -1,72 +1,166 @@
 package ru.itmo.service;
 
-import jakarta.validation.ConstraintViolation;
-import jakarta.validation.Validator;
-import org.postgresql.util.PSQLException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.PlatformTransactionManager;
-import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.support.TransactionTemplate;
-import ru.itmo.dto.CityDto;
+import ru.itmo.domain.ImportOperation;
+import ru.itmo.dto.CityBatchResultDto;
 import ru.itmo.dto.ImportResultDto;
 import ru.itmo.exception.ImportValidationException;
+import ru.itmo.retry.ConflictRetryExecutor;
 import ru.itmo.storage.ImportFileStorageService;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Set;
+import java.util.Locale;
 import java.util.UUID;
-import java.util.function.Supplier;
 
 @Service
 public class CityImportService {
 
+    private static final Logger log = LoggerFactory.getLogger(CityImportService.class);
+
     public static final String DEBUG_FAIL_AFTER_FILE_COMMIT = "AFTER_FILE_COMMIT";
 
+    private static final String ENGINE_JPA = "jpa";
+    private static final String ENGINE_COPY = "copy";
+
     private final CityService cityService;
-    private final Validator validator;
+    private final CityDtoValidator dtoValidator;
     private final ImportOperationService importOpService;
     private final PlatformTransactionManager txManager;
     private final ImportFileStorageService fileStorageService;
     private final InfraFailureSimulationService infraFailures;
+    private final ConflictRetryExecutor retryExecutor;
+    private final CityJsonStreamReader jsonReader;
+    private final int chunkSize;
+    private final boolean chunkedByDefault;
+    private final int maxValidationErrors;
+    private final boolean copyEngine;
+    private final ImportJobQueue jobQueue;
+
+    @PersistenceContext
+    private EntityManager em;
 
     public CityImportService(CityService cityService,
-                             Validator validator,
+                             CityDtoValidator dtoValidator,
+                             CityJsonStreamReader jsonReader,
                              ImportOperationService importOpService,
                              PlatformTransactionManager txManager,
                              ImportFileStorageService fileStorageService,
-                             InfraFailureSimulationService infraFailures) {
+                             InfraFailureSimulationService infraFailures,
+                             ConflictRetryExecutor retryExecutor,
+                             ImportJobQueue jobQueue,
+                             Environment env) {
         this.cityService = cityService;
-        this.validator = validator;
+        this.dtoValidator = dtoValidator;
+        this.jsonReader = jsonReader;
         this.importOpService = importOpService;
         this.txManager = txManager;
         this.fileStorageService = fileStorageService;
         this.infraFailures = infraFailures;
+        this.retryExecutor = retryExecutor;
+        this.jobQueue = jobQueue;
+        this.chunkSize = Integer.parseInt(env.getProperty("import.chunkSize", "500"));
+        this.chunkedByDefault = Boolean.parseBoolean(env.getProperty("import.chunkedCommit", "false"));
+        this.maxValidationErrors = Integer.parseInt(env.getProperty("import.validation.maxErrors", "0"));
+        this.copyEngine = parseEngine(env.getProperty("import.engine", ENGINE_JPA));
     }
 
-    public ImportResultDto importCities(List<CityDto> dtos, byte[] fileBytes, String originalFilename, String debugFailStage) {
-        if (dtos == null || dtos.isEmpty()) {
-            throw new IllegalArgumentException("Файл не содержит записей для импорта.");
-        }
-        if (fileBytes == null || fileBytes.length == 0) {
-            throw new IllegalArgumentException("Файл не передан или пустой.");
+    /**
+     * Registers the operation and hands the import to {@link ImportJobQueue}; a null {@code chunked}
+     * means {@code import.chunkedCommit}. The file is read three times as a stream (validate, upload
+     * to MinIO, insert), so the heap holds at most one chunk of records or one upload part at a time.
+     * Ownership of {@code spooledFile} passes to this method: it is deleted once the job finishes or
+     * is rejected.
+     * <p>
+     * With chunked commit every chunk of {@code import.chunkSize} records is committed in its own
+     * transaction together with the operation's committed offset. A failure after the file commit
+     * then keeps the file and the committed rows, and {@link #submitResume} continues from the offset.
+     *
+     * @return the operation, still IN_PROGRESS; progress is published on /topic/imports
+     */
+    public ImportOperation submitImport(Path spooledFile, String originalFilename, String debugFailStage, Boolean chunked) {
+        boolean chunkedCommit = chunked != null ? chunked : chunkedByDefault;
+        ImportOperation op;
+        try {
+            op = importOpService.start(
+                    UUID.randomUUID().toString(), originalFilename, fileStorageService.getBucketName(), chunkedCommit);
+        } catch (RuntimeException ex) {
+            deleteQuietly(spooledFile);
+            throw ex;
         }
 
-        String txId = UUID.randomUUID().toString();
-        var op = importOpService.start(txId, originalFilename, fileStorageService.getBucketName());
+        try {
+            jobQueue.submit(() -> {
+                try {
+                    runImport(op, new FileSystemResource(spooledFile), originalFilename, debugFailStage, chunkedCommit);
+                } catch (RuntimeException ex) {
+                    // the outcome is already recorded on the operation
+                    log.warn("Import operation id={} failed: {}", op.getId(), safeMsg(ex));
+                } finally {
+                    deleteQuietly(spooledFile);
+                }
+            });
+        } catch (TaskRejectedException ex) {
+            deleteQuietly(spooledFile);
+            importOpService.markFailed(op.getId(), "Очередь импорта переполнена");
+            throw ex;
+        }
+        return op;
+    }
 
+    private void runImport(ImportOperation op, Resource file, String originalFilename,
+                           String debugFailStage, boolean chunkedCommit) {
+        String txId = op.getTxId();
         String stagingKey = null;
         String finalKey = null;
+        ImportResultDto res;
 
         try {
-            List<ImportValidationException.ItemError> errors = validateAll(dtos);
+            List<ImportValidationException.ItemError> errors = new ArrayList<>();
+            ImportReferenceIndex refs = new ImportReferenceIndex();
+            boolean[] capReached = {false};
+            int total = jsonReader.readChunks(file, chunkSize, (base, chunk) -> {
+                // a chunk after the cap means records are left unchecked; stopping on a chunk
+                // boundary keeps the reported errors the same from run to run
+                if (capReached[0]) {
+                    throw new ImportValidationException(errors, true);
+                }
+                List<ImportValidationException.ItemError> chunkErrors = dtoValidator.validateAll(chunk, base);
+                refs.collect(chunk, base, chunkErrors);
+                chunkErrors.sort(Comparator.comparingInt(ImportValidationException.ItemError::getIndex));
+                errors.addAll(chunkErrors);
+                capReached[0] = maxValidationErrors > 0 && errors.size() >= maxValidationErrors;
+            });
+            if (total == 0) {
+                throw new IllegalArgumentException("Файл не содержит записей для импорта.");
+            }
+            if (errors.isEmpty()) {
+                errors.addAll(cityService.resolveImportReferences(refs));
+                errors.sort(Comparator.comparingInt(ImportValidationException.ItemError::getIndex));
+            }
             if (!errors.isEmpty()) {
                 throw new ImportValidationException(errors);
             }
 
             // Phase 1: PREPARE (upload file into staging area)
-            stagingKey = fileStorageService.prepare(txId, fileBytes, originalFilename);
-            importOpService.markFilePrepared(op.getId(), stagingKey);
+            stagingKey = prepareInStorage(txId, file, originalFilename);
+            importOpService.markFilePrepared(op.getId(), stagingKey, total);
 
             // Phase 2a: COMMIT file in storage (staging -> final)
             finalKey = fileStorageService.commitPrepared(txId, stagingKey, originalFilename);
@@ -75,24 +169,85 @@ public class CityImportService {
 
             maybeFailBetweenResources(debugFailStage);
 
-            // Phase 2b: COMMIT DB changes in a single SERIALIZABLE transaction
+            // Phase 2b: COMMIT DB changes in a single transaction, or chunk by chunk
             infraFailures.assertPostgresAvailable();
-            ImportResultDto res = runImportInSerializableTxWithRetry(dtos);
+            long startedNanos = System.nanoTime();
+            // COPY loads the file in a single transaction, so a chunked import always takes the JPA path
+            String engine = chunkedCommit || !copyEngine ? ENGINE_JPA : ENGINE_COPY;
+            res = chunkedCommit ? runChunkedImport(op.getId(), file, 0, refs)
+                    : copyEngine ? runCopyImportInTxWithRetry(file)
+                    : runImportInTxWithRetry(file, refs);
+            log.info("Import operation id={} inserted {} cities via {} in {} ms", op.getId(), res.getCreated(), engine,
+                    (System.nanoTime() - startedNanos) / 1_000_000);
             importOpService.markDbCommitted(op.getId());
             importOpService.markSuccess(op.getId(), res.getCreated());
-            return res;
         } catch (RuntimeException ex) {
+            if (chunkedCommit && finalKey != null) {
+                importOpService.markFailedResumable(op.getId(), safeMsg(ex));
+                throw ex;
+            }
             boolean hadStorageArtifact = stagingKey != null || finalKey != null;
             boolean compensated = compensateStorageQuietly(stagingKey, finalKey);
 
             String message = safeMsg(ex);
             if (hadStorageArtifact && compensated) {
                 importOpService.markCompensated(op.getId(), message);
+            } else if (ex instanceof ImportValidationException invalid) {
+                importOpService.markValidationFailed(op.getId(), invalid);
             } else {
                 importOpService.markFailed(op.getId(), message);
             }
             throw ex;
         }
+
+        // outside the try: the import is committed, a failing notification must not compensate it
+        cityService.publishImported(res);
+    }
+
+    /**
+     * Queues the continuation of a failed chunked import from its committed offset, reading the
+     * already committed file back from storage. An operation that cannot be resumed is rejected
+     * right away.
+     *
+     * @return the operation, back in FILE_COMMITTED; progress is published on /topic/imports
+     */
+    public ImportOperation submitResume(Long operationId) {
+        ImportOperation op = importOpService.markResumed(operationId);
+        try {
+            jobQueue.submit(() -> {
+                try {
+                    resume(op);
+                } catch (RuntimeException ex) {
+                    log.warn("Resume of import operation id={} failed: {}", operationId, safeMsg(ex));
+                }
+            });
+        } catch (TaskRejectedException ex) {
+            importOpService.markFailedResumable(operationId, "Очередь импорта переполнена");
+            throw ex;
+        }
+        return op;
+    }
+
+    private void resume(ImportOperation op) {
+        Long operationId = op.getId();
+        int offset = op.getCommittedOffset();
+
+        ImportResultDto res;
+        Path spooled = null;
+        try {
+            spooled = fileStorageService.downloadToTempFile(op.getFileFinalKey(), jobQueue.spoolDir());
+            infraFailures.assertPostgresAvailable();
+            res = runChunkedImport(operationId, new FileSystemResource(spooled), offset, null);
+            importOpService.markDbCommitted(operationId);
+            importOpService.markSuccess(operationId, offset + res.getCreated());
+        } catch (RuntimeException ex) {
+            importOpService.markFailedResumable(operationId, safeMsg(ex));
+            throw ex;
+        } finally {
+            deleteQuietly(spooled);
+        }
+
+        cityService.publishImported(res);
     }
 
     private void maybeFailBetweenResources(String debugFailStage) {
@@ -121,87 +276,81 @@ public class CityImportService {
         return ok;
     }
 
-    private ImportResultDto runImportInSerializableTxWithRetry(List<CityDto> dtos) {
-        int maxAttempts = 3;
-        long backoffMs = 30;
+    private ImportResultDto runCopyImportInTxWithRetry(InputStreamSource file) {
+        return retryExecutor.execute("CityImportService.copyImport",
+                () -> new TransactionTemplate(txManager).execute(status -> cityService.copyForImport(
+                        sink -> jsonReader.readChunks(file, chunkSize, (base, chunk) -> chunk.forEach(sink)))));
+    }
 
-        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
-            try {
-                return runSerializable(() -> doImportTransactional(dtos));
-            } catch (RuntimeException ex) {
-                boolean serFail = isSerializationFailure(ex);
-
-                if (serFail && attempt < maxAttempts) {
-                    try {
-                        Thread.sleep(backoffMs);
-                    } catch (InterruptedException ignored) {
-                        Thread.currentThread().interrupt();
-                    }
-                    backoffMs *= 2;
-                    continue;
-                }
+    private ImportResultDto runImportInTxWithRetry(InputStreamSource file, ImportReferenceIndex refs) {
+        return retryExecutor.execute("CityImportService.importCities",
+                () -> new TransactionTemplate(txManager).execute(status -> doImportTransactional(file, refs)));
+    }
 
-                throw ex;
+    /** {@code refs} is null on resume: the file was not re-validated, chunks look their references up themselves. */
+    private ImportResultDto runChunkedImport(Long operationId, Resource file, int fromOffset, ImportReferenceIndex refs) {
+        int[] created = {0};
+        try {
+            jsonReader.readChunks(file, fromOffset, chunkSize, (base, chunk) -> {
+                // a conflict only replays this chunk, not the file
+                CityBatchResultDto batch = retryExecutor.execute("CityImportService.importChunk",
+                        () -> new TransactionTemplate(txManager).execute(status -> {
+                            CityBatchResultDto inserted = cityService.createChunkForImport(chunk, base, refs);
+                            importOpService.recordCommittedOffset(operationId, base + chunk.size());
+                            return inserted;
+                        }));
+                created[0] += batch.getCreated();
+            });
+        } catch (RuntimeException ex) {
+            if (created[0] > 0) {
+                cityService.publishImported(new ImportResultDto(created[0]));
             }
+            throw ex;
         }
-
-        throw new IllegalStateException("Unreachable code");
+        return new ImportResultDto(created[0]);
     }
 
-    private ImportResultDto doImportTransactional(List<CityDto> dtos) {
-        List<Long> createdIds = new ArrayList<>(dtos.size());
+    private ImportResultDto doImportTransactional(InputStreamSource file, ImportReferenceIndex refs) {
+        int[] created = {0};
 
-        for (CityDto dto : dtos) {
-            CityDto created = cityService.createInCurrentTransactionForImport(dto);
-            createdIds.add(created.getId());
-        }
+        jsonReader.readChunks(file, chunkSize, (base, chunk) -> {
+            created[0] += cityService.createChunkForImport(chunk, base, refs).getCreated();
+            // the chunk is already flushed; detaching it keeps the persistence context bounded
+            em.clear();
+        });
 
-        return new ImportResultDto(createdIds.size(), createdIds);
+        return new ImportResultDto(created[0]);
     }
 
-    private List<ImportValidationException.ItemError> validateAll(List<CityDto> dtos) {
-        List<ImportValidationException.ItemError> errors = new ArrayList<>();
-
-        for (int i = 0; i < dtos.size(); i++) {
-            CityDto dto = dtos.get(i);
-
-            if (dto == null) {
-                errors.add(new ImportValidationException.ItemError(i, "$", "Запись равна null"));
-                continue;
-            }
-
-            addViolations(errors, i, validator.validate(dto));
-
-            if (dto.getCoordinates() != null) {
-                addViolations(errors, i, validator.validate(dto.getCoordinates()));
-            }
-            if (dto.getGovernor() != null) {
-                addViolations(errors, i, validator.validate(dto.getGovernor()));
-            }
+    private String prepareInStorage(String txId, Resource file, String originalFilename) {
+        try (InputStream in = file.getInputStream()) {
+            return fileStorageService.prepare(txId, in, sizeOf(file), originalFilename);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Ошибка чтения файла: " + e.getMessage());
+        }
+    }
 
-            if ((dto.getCoordinatesId() == null) == (dto.getCoordinates() == null)) {
-                errors.add(new ImportValidationException.ItemError(
-                        i, "coordinates",
-                        "Укажи либо coordinatesId, либо coordinates (ровно одно)."
-                ));
-            }
-            if (dto.getGovernorId() != null && dto.getGovernor() != null) {
-                errors.add(new ImportValidationException.ItemError(
-                        i, "governor",
-                        "Укажи либо governorId, либо governor (не оба)."
-                ));
-            }
+    private static long sizeOf(Resource file) {
+        try {
+            return file.contentLength();
+        } catch (IOException e) {
+            return -1;
         }
+    }
 
-        return errors;
+    private static boolean parseEngine(String engine) {
+        String e = engine.trim().toLowerCase(Locale.ROOT);
+        if (!ENGINE_JPA.equals(e) && !ENGINE_COPY.equals(e)) {
+            throw new IllegalStateException("import.engine must be '" + ENGINE_JPA + "' or '" + ENGINE_COPY + "': " + engine);
+        }
+        return ENGINE_COPY.equals(e);
     }
 
-    private void addViolations(List<ImportValidationException.ItemError> errors,
-                               int index,
-                               Set<? extends ConstraintViolation<?>> violations) {
-        for (ConstraintViolation<?> v : violations) {
-            String field = v.getPropertyPath() != null ? v.getPropertyPath().toString() : "$";
-            errors.add(new ImportValidationException.ItemError(index, field, v.getMessage()));
+    private static void deleteQuietly(Path file) {
+        if (file == null) return;
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
         }
     }
 
@@ -210,19 +359,4 @@ public class CityImportService {
         if (m == null || m.isBlank()) return ex.getClass().getSimpleName();
         return m.length() > 1000 ? m.substring(0, 1000) : m;
     }
-
-    private <T> T runSerializable(Supplier<T> action) {
-        TransactionTemplate tt = new TransactionTemplate(txManager);
-        tt.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
-        return tt.execute(status -> action.get());
-    }
-
-    private boolean isSerializationFailure(Throwable ex) {
-        Throwable t = ex;
-        while (t.getCause() != null) t = t.getCause();
-        if (t instanceof PSQLException psql) {
-            return "40001".equals(psql.getSQLState());
-        }
-        return false;
-    }
 }
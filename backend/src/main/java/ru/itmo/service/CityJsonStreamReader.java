@@ -0,0 +1,87 @@
+package ru.itmo.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Component;
+import ru.itmo.dto.CityDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a top-level JSON array of cities one element at a time, so only the current
+ * chunk of {@link CityDto}s is ever on the heap.
+ */
+@Component
+public class CityJsonStreamReader {
+
+    private final ObjectMapper objectMapper;
+
+    public CityJsonStreamReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @FunctionalInterface
+    public interface ChunkConsumer {
+        void accept(int baseIndex, List<CityDto> chunk);
+    }
+
+    /**
+     * Hands consecutive chunks of at most {@code chunkSize} records to {@code consumer}
+     * and returns the number of records read. A JSON null element is passed on as null.
+     */
+    public int readChunks(InputStreamSource source, int chunkSize, ChunkConsumer consumer) {
+        return readChunks(source, 0, chunkSize, consumer);
+    }
+
+    /**
+     * Like {@link #readChunks(InputStreamSource, int, ChunkConsumer)}, but the first {@code skip}
+     * records are stepped over without being bound to {@link CityDto}. Indexes and the returned
+     * count still refer to the whole file.
+     */
+    public int readChunks(InputStreamSource source, int skip, int chunkSize, ChunkConsumer consumer) {
+        try (InputStream in = source.getInputStream();
+             JsonParser parser = objectMapper.getFactory().createParser(in)) {
+
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Некорректный JSON: ожидался массив городов");
+            }
+
+            int index = 0;
+            int chunkBase = skip;
+            List<CityDto> chunk = new ArrayList<>(chunkSize);
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new IllegalArgumentException("Некорректный JSON: массив не закрыт");
+                }
+                if (index++ < skip) {
+                    parser.skipChildren();
+                    continue;
+                }
+                chunk.add(token == JsonToken.VALUE_NULL ? null : objectMapper.readValue(parser, CityDto.class));
+                if (chunk.size() == chunkSize) {
+                    consumer.accept(chunkBase, chunk);
+                    chunkBase += chunk.size();
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                consumer.accept(chunkBase, chunk);
+            }
+            if (index < skip) {
+                throw new IllegalArgumentException("Файл содержит " + index + " записей, меньше смещения " + skip);
+            }
+            return index;
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Некорректный JSON: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Ошибка чтения файла: " + e.getMessage());
+        }
+    }
+}
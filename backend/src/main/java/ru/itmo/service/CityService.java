@@ -1,61 +1,96 @@
 package ru.itmo.service;
 
-import org.postgresql.util.PSQLException;
-import org.springframework.data.domain.Page;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.PlatformTransactionManager;
-import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
-import org.springframework.transaction.support.TransactionTemplate;
+import ru.itmo.analytics.CityAnalyticsRow;
+import ru.itmo.analytics.CityAnalyticsSnapshot;
+import ru.itmo.cache.CityCountCache;
 import ru.itmo.domain.City;
 import ru.itmo.domain.Climate;
 import ru.itmo.domain.Coordinates;
 import ru.itmo.domain.Government;
 import ru.itmo.domain.Human;
+import ru.itmo.dto.CityBatchResultDto;
+import ru.itmo.dto.CityBulkDeleteRequestDto;
+import ru.itmo.dto.CityBulkDeleteResultDto;
+import ru.itmo.dto.CityBulkUpdateRequestDto;
+import ru.itmo.dto.CityBulkUpdateResultDto;
 import ru.itmo.dto.CityDto;
 import ru.itmo.dto.CityPageDto;
 import ru.itmo.dto.CoordinatesDto;
+import ru.itmo.dto.CursorPageDto;
 import ru.itmo.dto.HumanDto;
+import ru.itmo.dto.ImportResultDto;
 import ru.itmo.dto.PageRequestDto;
 import ru.itmo.exception.BusinessRuleViolationException;
+import ru.itmo.exception.DbConstraints;
+import ru.itmo.exception.ImportValidationException;
 import ru.itmo.exception.RelatedEntityNotFound;
+import ru.itmo.lock.StripedLock;
 import ru.itmo.repository.CityRepository;
+import ru.itmo.repository.CityRepositoryCustom;
+import ru.itmo.retry.RetryOnConflict;
+import ru.itmo.repository.CoordinatesRepositoryCustom.Pair;
+import ru.itmo.repository.CityRow;
+import ru.itmo.specification.CityKeyset;
 import ru.itmo.specification.CitySpecifications;
 import ru.itmo.websocket.ChangeAction;
 import ru.itmo.websocket.WsEventPublisher;
 
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.function.Supplier;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 public class CityService {
 
+    private static final int NAME_SEARCH_DEFAULT_LIMIT = 50;
+    private static final int NAME_SEARCH_MAX_LIMIT = 500;
+    private static final int BATCH_MAX_SIZE = 10_000;
+    private static final int IN_CHUNK_SIZE = 1_000;
+    static final float CAPITAL_GOVERNOR_MIN_HEIGHT = 150.0f;
+    static final String CAPITAL_WITHOUT_GOVERNOR_MESSAGE = "Город не может быть столицей без губернатора.";
+    static final String CAPITAL_GOVERNOR_TOO_SHORT_MESSAGE =
+            "Нельзя создать/обновить столицу: рост губернатора должен быть ≥ " + (int) CAPITAL_GOVERNOR_MIN_HEIGHT + " см.";
+
     private final CityRepository cityRepo;
     private final CoordinatesService coordsService;
     private final HumanService humanService;
     private final WsEventPublisher ws;
-    private final PlatformTransactionManager txManager;
+    private final CityAnalyticsSnapshot analytics;
+    private final CityCountCache countCache;
+    private final CityDtoValidator dtoValidator;
 
     public CityService(
             CityRepository cityRepo,
             CoordinatesService coordsService,
             HumanService humanService,
             WsEventPublisher ws,
-            PlatformTransactionManager txManager
+            CityAnalyticsSnapshot analytics,
+            CityCountCache countCache,
+            CityDtoValidator dtoValidator
     ) {
         this.cityRepo = cityRepo;
         this.coordsService = coordsService;
         this.humanService = humanService;
         this.ws = ws;
-        this.txManager = txManager;
+        this.analytics = analytics;
+        this.countCache = countCache;
+        this.dtoValidator = dtoValidator;
     }
 
     @Transactional(readOnly = true)
@@ -71,11 +106,79 @@ public class CityService {
 
         int page = rq.getPage() != null ? rq.getPage() : 0;
         int size = rq.getSize() != null ? rq.getSize() : 20;
+
+        String similarName = CitySpecifications.isFuzzyNameSearch(rq) ? rq.getName() : null;
+
+        boolean hasCursor = rq.getCursor() != null && !rq.getCursor().isBlank();
+        if (hasCursor || Boolean.TRUE.equals(rq.getKeyset())) {
+            if (similarName != null) {
+                throw new IllegalArgumentException("Нечёткий поиск (fuzzy) не поддерживается в режиме cursor");
+            }
+            return keysetPage(spec, sort, size, hasCursor ? rq.getCursor() : null);
+        }
+
         Pageable pageable = PageRequest.of(page, size, sort);
 
-        Page<City> p = cityRepo.findAll(spec, pageable);
+        switch (parseCountMode(rq.getCountMode())) {
+            case "none": {
+                List<CityDto> rows = rows(spec, similarName, sort, pageable.getOffset(), size + 1);
+                boolean hasNext = rows.size() > size;
+                List<CityDto> content = hasNext ? rows.subList(0, size) : rows;
+                return CityPageDto.fromSlice(new SliceImpl<>(content, pageable, hasNext));
+            }
+            case "cached": {
+                List<CityDto> content = rows(spec, similarName, sort, pageable.getOffset(), size);
+                return CityPageDto.fromPage(PageableExecutionUtils.getPage(content, pageable,
+                        () -> countCache.get(rq, () -> cityRepo.count(spec))));
+            }
+            case "estimated": {
+                List<CityDto> content = rows(spec, similarName, sort, pageable.getOffset(), size);
+                Long estimate = countCache.isUnfiltered(rq) ? cityRepo.estimatedRowCount() : null;
+                boolean usable = estimate != null && estimate >= 0;
+                CityPageDto<CityDto> dto = CityPageDto.fromPage(PageableExecutionUtils.getPage(content, pageable,
+                        () -> usable ? estimate : countCache.get(rq, () -> cityRepo.count(spec))));
+                dto.setTotalEstimated(usable);
+                return dto;
+            }
+            default: {
+                List<CityDto> content = rows(spec, similarName, sort, pageable.getOffset(), size);
+                return CityPageDto.fromPage(PageableExecutionUtils.getPage(content, pageable,
+                        () -> cityRepo.count(spec)));
+            }
+        }
+    }
 
-        return CityPageDto.fromPage(p.map(this::toDto));
+    private List<CityDto> rows(Specification<City> spec, String similarName, Sort sort, long offset, int limit) {
+        List<CityRow> rows = similarName != null
+                ? cityRepo.findRowsBySimilarName(spec, similarName, sort, offset, limit)
+                : cityRepo.findRows(spec, sort, offset, limit);
+        return rows.stream()
+                .map(CityRow::toDto)
+                .toList();
+    }
+
+    private static String parseCountMode(String countMode) {
+        if (countMode == null || countMode.isBlank()) return "exact";
+        String mode = countMode.trim().toLowerCase(Locale.ROOT);
+        return switch (mode) {
+            case "exact", "none", "cached", "estimated" -> mode;
+            default -> throw new IllegalArgumentException(
+                    "countMode должен быть одним из: exact, none, cached, estimated");
+        };
+    }
+
+    private CityPageDto<CityDto> keysetPage(Specification<City> spec, Sort sort, int size, String cursor) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size должен быть больше 0");
+        }
+        Specification<City> seek = cursor != null ? spec.and(CityKeyset.after(sort, cursor)) : spec;
+
+        List<CityDto> rows = rows(seek, null, sort, 0, size + 1);
+        boolean hasMore = rows.size() > size;
+        List<CityDto> content = hasMore ? rows.subList(0, size) : rows;
+
+        String nextCursor = hasMore ? CityKeyset.encode(sort, content.get(content.size() - 1)) : null;
+        return CityPageDto.fromKeyset(content, size, cursor == null, nextCursor);
     }
 
     private Sort resolveSort(PageRequestDto rq) {
@@ -149,46 +252,9 @@ public class CityService {
     }
 
 
-    private <T> T runSerializableWithRetry(Supplier<T> action) {
-        int maxAttempts = 3;
-        long backoffMs = 30;
-
-        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
-            try {
-                TransactionTemplate tt = new TransactionTemplate(txManager);
-                tt.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
-                return tt.execute(status -> action.get());
-            } catch (RuntimeException ex) {
-                if (isSerializationFailure(ex) && attempt < maxAttempts) {
-                    try {
-                        Thread.sleep(backoffMs);
-                    } catch (InterruptedException ignored) {
-                        Thread.currentThread().interrupt();
-                    }
-                    backoffMs *= 2;
-                    continue;
-                }
-                throw ex;
-            }
-        }
-        throw new IllegalStateException("Unreachable code");
-    }
-
-    private boolean isSerializationFailure(Throwable ex) {
-        Throwable t = ex;
-        while (t.getCause() != null) t = t.getCause();
-        if (t instanceof PSQLException psql) {
-            return "40001".equals(psql.getSQLState());
-        }
-        return false;
-    }
-
-
+    @RetryOnConflict
+    @Transactional
     public CityDto create(CityDto dto) {
-        return runSerializableWithRetry(() -> doCreate(dto));
-    }
-
-    public CityDto createInCurrentTransactionForImport(CityDto dto) {
         return doCreate(dto);
     }
 
@@ -202,13 +268,6 @@ public class CityService {
 
         dto.setName(normalizeCityName(dto.getName()));
 
-        if (dto.getName() != null && cityRepo.existsByNameIgnoreCase(dto.getName())) {
-            throw new BusinessRuleViolationException(
-                    "CITY_NAME_NOT_UNIQUE",
-                    "Название города должно быть уникальным: " + dto.getName()
-            );
-        }
-
         City e = new City();
 
         e.setName(dto.getName());
@@ -226,7 +285,7 @@ public class CityService {
             coords = coordsService.findById(dto.getCoordinatesId())
                     .orElseThrow(() -> new RelatedEntityNotFound("Coordinates", dto.getCoordinatesId()));
         } else {
-            coords = coordsService.saveNewAndNotify(dto.getCoordinates().toNewEntity());
+            coords = coordsService.findOrCreate(dto.getCoordinates().getX(), dto.getCoordinates().getY());
         }
         e.setCoordinates(coords);
 
@@ -243,38 +302,309 @@ public class CityService {
 
         validateCapitalRequiresGovernor(e);
 
-        e = cityRepo.save(e);
-        cityRepo.flush();
+        e = saveAndFlush(e);
 
         CityDto out = toDto(e);
         Long cityId = out.getId();
+        CityAnalyticsRow row = CityAnalyticsRow.fromEntity(e);
         afterCommit(() -> ws.sendChange("City", ChangeAction.CREATED, cityId, out));
+        afterCommit(() -> analytics.onCitySaved(row));
+        afterCommit(countCache::invalidateAll);
 
         return out;
     }
 
+    @RetryOnConflict
+    @Transactional
+    public CityBatchResultDto createBatch(List<CityDto> dtos) {
+        if (dtos == null || dtos.isEmpty()) {
+            throw new IllegalArgumentException("Пакет не содержит городов.");
+        }
+        if (dtos.size() > BATCH_MAX_SIZE) {
+            throw new IllegalArgumentException("Пакет не может содержать больше " + BATCH_MAX_SIZE + " городов.");
+        }
+        List<ImportValidationException.ItemError> errors = dtoValidator.validateAll(dtos);
+        if (!errors.isEmpty()) {
+            throw new ImportValidationException(errors);
+        }
+        return doCreateBatch(dtos, 0, true, null);
+    }
+
+    /**
+     * One chunk of a file import inside the caller's transaction. Item indexes are
+     * offset by {@code baseIndex}; no per-row events are registered, the import
+     * publishes a single summary through {@link #publishImported}. The chunk's rows reach
+     * the analytics snapshot when the caller's transaction commits. With a resolved
+     * {@code refs} the chunk is inserted without any lookup queries.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public CityBatchResultDto createChunkForImport(List<CityDto> dtos, int baseIndex, ImportReferenceIndex refs) {
+        return doCreateBatch(dtos, baseIndex, false, refs != null && refs.isResolved() ? refs : null);
+    }
+
+    /**
+     * COPY-based counterpart of {@link #createChunkForImport} for a whole file, in the caller's
+     * transaction: {@code feed} hands every record over in file order. The records must already
+     * have passed {@link CityDtoValidator} and {@link #resolveImportReferences}.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public ImportResultDto copyForImport(Consumer<Consumer<CityDto>> feed) {
+        int[] next = {0};
+        cityRepo.copyToStage(sink -> feed.accept(dto -> sink.accept(toStaged(next[0]++, dto))));
+
+        List<ImportValidationException.ItemError> errors = new ArrayList<>();
+        for (CityRepositoryCustom.StagedCapitalViolation v : cityRepo.findStagedCapitalViolations(CAPITAL_GOVERNOR_MIN_HEIGHT)) {
+            errors.add(new ImportValidationException.ItemError(v.index(), "capital",
+                    v.governorMissing() ? CAPITAL_WITHOUT_GOVERNOR_MESSAGE : CAPITAL_GOVERNOR_TOO_SHORT_MESSAGE));
+        }
+        if (!errors.isEmpty()) {
+            throw new ImportValidationException(errors);
+        }
+
+        List<CityAnalyticsRow> rows = cityRepo.insertStaged();
+        afterCommit(() -> analytics.onCitiesSaved(rows));
+        afterCommit(countCache::invalidateAll);
+        return new ImportResultDto(rows.size());
+    }
+
+    private CityRepositoryCustom.StagedCity toStaged(int index, CityDto dto) {
+        CoordinatesDto coords = dto.getCoordinatesId() == null ? dto.getCoordinates() : null;
+        HumanDto governor = dto.getGovernorId() == null ? dto.getGovernor() : null;
+        Government government = parseEnumOrNull(Government.class, dto.getGovernment());
+        return new CityRepositoryCustom.StagedCity(
+                index,
+                normalizeCityName(dto.getName()),
+                dto.getArea(),
+                dto.getPopulation(),
+                dto.getEstablishmentDate() != null ? new java.sql.Date(dto.getEstablishmentDate().getTime()).toLocalDate() : null,
+                Boolean.TRUE.equals(dto.getCapital()),
+                dto.getMetersAboveSeaLevel(),
+                dto.getTelephoneCode(),
+                Climate.valueOf(dto.getClimate()).name(),
+                government != null ? government.name() : null,
+                dto.getCoordinatesId(),
+                coords != null ? coords.getX() : null,
+                coords != null ? coords.getY() : null,
+                dto.getGovernorId(),
+                governor != null ? governor.getHeight() : null
+        );
+    }
+
+    /** Checks the names and references gathered for a whole import file in one round of queries. */
+    @Transactional(readOnly = true)
+    public List<ImportValidationException.ItemError> resolveImportReferences(ImportReferenceIndex refs) {
+        return refs.resolve(cityRepo.findExisting(refs.coordinatesIds(), refs.governorIds(), refs.lowerNames()));
+    }
+
+    /**
+     * Sends the summary event of an import. The analytics snapshot and the count cache are
+     * already up to date: every import transaction updates them on its own commit.
+     */
+    public void publishImported(ImportResultDto result) {
+        ws.sendChange("City", ChangeAction.CREATED, null, result);
+    }
+
+    /**
+     * Checks every business rule for the whole batch with a handful of IN queries,
+     * then upserts inline coordinates in one statement, persists governors and cities
+     * and flushes once. A resolved {@code refs} replaces those queries.
+     */
+    private CityBatchResultDto doCreateBatch(List<CityDto> dtos, int baseIndex, boolean notifyEach,
+                                             ImportReferenceIndex refs) {
+        List<ImportValidationException.ItemError> errors = new ArrayList<>();
+
+        Map<String, Integer> firstByName = new HashMap<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            CityDto dto = dtos.get(i);
+            dto.setName(normalizeCityName(dto.getName()));
+            Integer first = firstByName.putIfAbsent(dto.getName().toLowerCase(Locale.ROOT), i);
+            if (first != null) {
+                errors.add(new ImportValidationException.ItemError(baseIndex + i, "name",
+                        "Название города повторяется в пакете (запись " + (baseIndex + first) + "): " + dto.getName()));
+            }
+        }
+        Set<String> takenNames = new HashSet<>();
+        Map<Long, Coordinates> coordsById = new HashMap<>();
+        Map<Long, Human> governorsById = new HashMap<>();
+
+        if (refs != null) {
+            // names were checked file-wide up front, ids are known to exist: references only
+            for (CityDto dto : dtos) {
+                Long cid = dto.getCoordinatesId();
+                if (cid != null && refs.hasCoordinates(cid)) coordsById.computeIfAbsent(cid, coordsService::getReference);
+                Long gid = dto.getGovernorId();
+                if (gid != null && refs.hasGovernor(gid)) governorsById.computeIfAbsent(gid, humanService::getReference);
+            }
+        } else {
+            for (List<String> chunk : chunks(firstByName.keySet())) {
+                takenNames.addAll(cityRepo.findExistingLowerNames(chunk));
+            }
+
+            Set<Long> coordinatesIds = new HashSet<>();
+            Set<Long> governorIds = new HashSet<>();
+            for (CityDto dto : dtos) {
+                if (dto.getCoordinatesId() != null) coordinatesIds.add(dto.getCoordinatesId());
+                if (dto.getGovernorId() != null) governorIds.add(dto.getGovernorId());
+            }
+
+            for (List<Long> chunk : chunks(coordinatesIds)) {
+                coordsService.findAllById(chunk).forEach(c -> coordsById.put(c.getId(), c));
+            }
+            for (List<Long> chunk : chunks(governorIds)) {
+                humanService.findAllById(chunk).forEach(h -> governorsById.put(h.getId(), h));
+            }
+        }
+
+        List<City> cities = new ArrayList<>(dtos.size());
+        Map<Integer, Pair> inlineCoordinates = new HashMap<>();
+        List<Human> newGovernors = new ArrayList<>();
+
+        for (int i = 0; i < dtos.size(); i++) {
+            CityDto dto = dtos.get(i);
+
+            if (takenNames.contains(dto.getName().toLowerCase(Locale.ROOT))) {
+                errors.add(new ImportValidationException.ItemError(baseIndex + i, "name",
+                        "Название города должно быть уникальным: " + dto.getName()));
+            }
+
+            City e = new City();
+            e.setName(dto.getName());
+            e.setArea(dto.getArea());
+            e.setPopulation(dto.getPopulation());
+            e.setEstablishmentDate(dto.getEstablishmentDate());
+            e.setCapital(Boolean.TRUE.equals(dto.getCapital()));
+            e.setMetersAboveSeaLevel(dto.getMetersAboveSeaLevel());
+            e.setTelephoneCode(dto.getTelephoneCode());
+            e.setClimate(Climate.valueOf(dto.getClimate()));
+            e.setGovernment(parseEnumOrNull(Government.class, dto.getGovernment()));
+
+            if (dto.getCoordinatesId() != null) {
+                Coordinates coords = coordsById.get(dto.getCoordinatesId());
+                if (coords == null) {
+                    errors.add(new ImportValidationException.ItemError(baseIndex + i, "coordinatesId",
+                            "Coordinates not found: " + dto.getCoordinatesId()));
+                }
+                e.setCoordinates(coords);
+            } else {
+                inlineCoordinates.put(i, new Pair(dto.getCoordinates().getX(), dto.getCoordinates().getY()));
+            }
+
+            if (dto.getGovernorId() != null) {
+                Human gov = governorsById.get(dto.getGovernorId());
+                if (gov == null) {
+                    errors.add(new ImportValidationException.ItemError(baseIndex + i, "governorId",
+                            "Human not found: " + dto.getGovernorId()));
+                }
+                e.setGovernor(gov);
+            } else if (dto.getGovernor() != null) {
+                Human gov = dto.getGovernor().toNewEntity();
+                newGovernors.add(gov);
+                e.setGovernor(gov);
+            }
+
+            // with refs the validation pass has checked it; here it would load every referenced governor
+            if (refs == null) {
+                try {
+                    validateCapitalRequiresGovernor(e);
+                } catch (BusinessRuleViolationException ex) {
+                    errors.add(new ImportValidationException.ItemError(baseIndex + i, "capital", ex.getMessage()));
+                }
+            }
+
+            cities.add(e);
+        }
+
+        if (!errors.isEmpty()) {
+            errors.sort(Comparator.comparingInt(ImportValidationException.ItemError::getIndex));
+            throw new ImportValidationException(errors);
+        }
+
+        // inline coordinates that already exist are attached instead of duplicated
+        Map<Pair, Coordinates> coordsByPair = coordsService.findOrCreateAll(inlineCoordinates.values(), notifyEach);
+        inlineCoordinates.forEach((i, pair) -> cities.get(i).setCoordinates(coordsByPair.get(pair)));
+
+        if (notifyEach) {
+            humanService.saveAllNewAndNotify(newGovernors);
+        } else {
+            humanService.saveAllNew(newGovernors);
+        }
+        cityRepo.saveAll(cities);
+        cityRepo.flush();
+
+        List<CityBatchResultDto.Item> items = new ArrayList<>(cities.size());
+        List<CityAnalyticsRow> rows = new ArrayList<>(cities.size());
+        for (int i = 0; i < cities.size(); i++) {
+            City c = cities.get(i);
+            items.add(new CityBatchResultDto.Item(baseIndex + i, c.getId(), c.getName()));
+            rows.add(CityAnalyticsRow.fromEntity(c));
+        }
+        if (!notifyEach) {
+            afterCommit(() -> analytics.onCitiesSaved(rows));
+            afterCommit(countCache::invalidateAll);
+            return new CityBatchResultDto(items.size(), items);
+        }
+
+        List<CityDto> created = new ArrayList<>(cities.size());
+        for (City c : cities) {
+            created.add(toDto(c));
+        }
+
+        afterCommit(() -> created.forEach(dto -> ws.sendChange("City", ChangeAction.CREATED, dto.getId(), dto)));
+        afterCommit(() -> rows.forEach(analytics::onCitySaved));
+        afterCommit(countCache::invalidateAll);
+
+        return new CityBatchResultDto(items.size(), items);
+    }
+
+    /**
+     * Name uniqueness is enforced by uq_city_name_lower; a clash surfaces at flush.
+     */
+    private City saveAndFlush(City e) {
+        try {
+            City saved = cityRepo.save(e);
+            cityRepo.flush();
+            return saved;
+        } catch (DataIntegrityViolationException ex) {
+            if (DbConstraints.isUniqueViolation(ex, DbConstraints.CITY_NAME_UNIQUE)) {
+                throw new BusinessRuleViolationException(
+                        "CITY_NAME_NOT_UNIQUE",
+                        "Название города должно быть уникальным: " + e.getName()
+                );
+            }
+            throw ex;
+        }
+    }
+
+    private static <T> List<List<T>> chunks(Collection<T> values) {
+        List<T> all = new ArrayList<>(values);
+        List<List<T>> out = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += IN_CHUNK_SIZE) {
+            out.add(all.subList(from, Math.min(all.size(), from + IN_CHUNK_SIZE)));
+        }
+        return out;
+    }
+
     private static <E extends Enum<E>> E parseEnumOrNull(Class<E> type, String v) {
         if (v == null || v.isBlank()) return null;
         return Enum.valueOf(type, v);
     }
 
+    @StripedLock(entity = "City")
+    @RetryOnConflict
+    @Transactional
     public CityDto update(Long id, CityDto dto) {
-        return runSerializableWithRetry(() -> doUpdate(id, dto));
+        return doUpdate(id, dto);
     }
 
     private CityDto doUpdate(Long id, CityDto dto) {
-        City e = cityRepo.findByIdForUpdate(id)
+        City e = cityRepo.findById(id)
                 .orElseThrow(() -> new NoSuchElementException("Город с id=" + id + " не найден"));
+        if (dto.getVersion() != null && !dto.getVersion().equals(e.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(City.class, id);
+        }
 
         dto.setName(normalizeCityName(dto.getName()));
 
-        if (dto.getName() != null && cityRepo.existsByNameIgnoreCaseAndIdNot(dto.getName(), id)) {
-            throw new BusinessRuleViolationException(
-                    "CITY_NAME_NOT_UNIQUE",
-                    "Название города должно быть уникальным: " + dto.getName()
-            );
-        }
-
         e.setName(dto.getName());
         e.setArea(dto.getArea());
         e.setPopulation(dto.getPopulation());
@@ -305,13 +635,8 @@ public class CityService {
 
             } else if (dto.getCoordinates() != null) {
 
-                if (e.getCoordinates() != null) {
-                    dto.getCoordinates().applyToEntity(e.getCoordinates());
-                    coordsService.saveUpdatedAndNotify(e.getCoordinates());
-                } else {
-                    Coordinates created = coordsService.saveNewAndNotify(dto.getCoordinates().toNewEntity());
-                    e.setCoordinates(created);
-                }
+                // the row may be shared by other cities, so re-point instead of editing it in place
+                e.setCoordinates(coordsService.findOrCreate(dto.getCoordinates().getX(), dto.getCoordinates().getY()));
             } else {
                 throw new IllegalArgumentException("Coordinates must be provided: either coordinatesId OR coordinates.");
             }
@@ -343,12 +668,14 @@ public class CityService {
 
         validateCapitalRequiresGovernor(e);
 
-        e = cityRepo.save(e);
-        cityRepo.flush();
+        e = saveAndFlush(e);
 
         CityDto out = toDto(e);
         Long cityId = out.getId();
+        CityAnalyticsRow row = CityAnalyticsRow.fromEntity(e);
         afterCommit(() -> ws.sendChange("City", ChangeAction.UPDATED, cityId, out));
+        afterCommit(() -> analytics.onCitySaved(row));
+        afterCommit(countCache::invalidateAll);
 
         return out;
     }
@@ -364,13 +691,13 @@ public class CityService {
         return cityRepo.findAll().stream().map(this::toDto).toList();
     }
 
+    @StripedLock(entity = "City")
+    @RetryOnConflict
+    @Transactional(isolation = Isolation.SERIALIZABLE)
     public void delete(Long id,
                        boolean deleteGovernorIfOrphan,
                        boolean deleteCoordinatesIfOrphan) {
-        runSerializableWithRetry(() -> {
-            doDelete(id, deleteGovernorIfOrphan, deleteCoordinatesIfOrphan);
-            return null;
-        });
+        doDelete(id, deleteGovernorIfOrphan, deleteCoordinatesIfOrphan);
     }
 
     private void doDelete(Long id,
@@ -400,6 +727,122 @@ public class CityService {
         }
 
         afterCommit(() -> ws.sendChange("City", ChangeAction.DELETED, id, null));
+        afterCommit(() -> analytics.onCityDeleted(id));
+        afterCommit(countCache::invalidateAll);
+    }
+
+    @RetryOnConflict
+    @Transactional
+    public CityBulkDeleteResultDto deleteBulk(CityBulkDeleteRequestDto rq) {
+        if (rq == null) {
+            throw new IllegalArgumentException("Тело запроса не передано.");
+        }
+        Collection<Long> ids = resolveBulkTargets(rq.getIds(), rq.getFilter());
+
+        CityRepositoryCustom.BulkDeleted deleted = cityRepo.deleteCascading(
+                ids, rq.isDeleteGovernorIfOrphan(), rq.isDeleteCoordinatesIfOrphan());
+        CityBulkDeleteResultDto out = new CityBulkDeleteResultDto(
+                deleted.cityIds(), deleted.governorIds(), deleted.coordinatesIds());
+
+        // one summary event per affected topic instead of one per row
+        if (!out.getCityIds().isEmpty()) {
+            afterCommit(() -> ws.sendChange("City", ChangeAction.DELETED, null, out));
+        }
+        if (!out.getGovernorIds().isEmpty()) {
+            afterCommit(() -> ws.sendChange("Human", ChangeAction.DELETED, null, out.getGovernorIds()));
+        }
+        if (!out.getCoordinatesIds().isEmpty()) {
+            afterCommit(() -> ws.sendChange("Coordinates", ChangeAction.DELETED, null, out.getCoordinatesIds()));
+        }
+        afterCommit(() -> analytics.onCitiesDeleted(out.getCityIds()));
+        afterCommit(countCache::invalidateAll);
+        return out;
+    }
+
+    @RetryOnConflict
+    @Transactional
+    public CityBulkUpdateResultDto updateBulk(CityBulkUpdateRequestDto rq) {
+        if (rq == null) {
+            throw new IllegalArgumentException("Тело запроса не передано.");
+        }
+        if (rq.isClearGovernor() && rq.getGovernorId() != null) {
+            throw new IllegalArgumentException("Нельзя одновременно передавать governorId и clearGovernor=true");
+        }
+        if (rq.isClearGovernment() && rq.getGovernment() != null && !rq.getGovernment().isBlank()) {
+            throw new IllegalArgumentException("Нельзя одновременно передавать government и clearGovernment=true");
+        }
+        if (rq.getTelephoneCode() != null && (rq.getTelephoneCode() <= 0 || rq.getTelephoneCode() > 100000)) {
+            throw new IllegalArgumentException("Telephone code must be > 0 and ≤ 100000");
+        }
+
+        CityRepositoryCustom.CityPatch patch = new CityRepositoryCustom.CityPatch(
+                parseEnumOrNull(Climate.class, rq.getClimate()),
+                parseEnumOrNull(Government.class, rq.getGovernment()),
+                rq.isClearGovernment(),
+                rq.getGovernorId(),
+                rq.isClearGovernor(),
+                rq.getCapital(),
+                rq.getTelephoneCode(),
+                rq.getMetersAboveSeaLevel());
+        if (patch.isEmpty()) {
+            throw new IllegalArgumentException("Не передано ни одного изменяемого поля");
+        }
+        if (patch.governorId() != null && humanService.findById(patch.governorId()).isEmpty()) {
+            throw new RelatedEntityNotFound("Human", patch.governorId());
+        }
+
+        Collection<Long> ids = resolveBulkTargets(rq.getIds(), rq.getFilter());
+
+        List<CityRepositoryCustom.PatchedCity> patched = cityRepo.patchAll(ids, patch, CAPITAL_GOVERNOR_MIN_HEIGHT);
+        for (CityRepositoryCustom.PatchedCity p : patched) {
+            if (p.capitalViolation() == CityRepositoryCustom.CapitalViolation.GOVERNOR_MISSING) {
+                throw new BusinessRuleViolationException("CAPITAL_REQUIRES_GOVERNOR", CAPITAL_WITHOUT_GOVERNOR_MESSAGE);
+            }
+            if (p.capitalViolation() == CityRepositoryCustom.CapitalViolation.GOVERNOR_TOO_SHORT) {
+                throw new BusinessRuleViolationException("CAPITAL_GOVERNOR_TOO_SHORT", CAPITAL_GOVERNOR_TOO_SHORT_MESSAGE);
+            }
+        }
+
+        List<CityAnalyticsRow> rows = patched.stream().map(CityRepositoryCustom.PatchedCity::row).toList();
+        CityBulkUpdateResultDto out = new CityBulkUpdateResultDto(rows.stream().map(CityAnalyticsRow::id).toList());
+
+        if (!rows.isEmpty()) {
+            afterCommit(() -> ws.sendChange("City", ChangeAction.UPDATED, null, out));
+        }
+        afterCommit(() -> analytics.onCitiesSaved(rows));
+        afterCommit(countCache::invalidateAll);
+        return out;
+    }
+
+    /**
+     * Either the given ids or the ids matching {@code filter}. Both are capped at {@link #BATCH_MAX_SIZE}:
+     * a filter is resolved to ids first (the patch and delete statements are native SQL and cannot take
+     * the specification), and a filter matching more cities is rejected rather than applied partially.
+     */
+    private Collection<Long> resolveBulkTargets(List<Long> ids, PageRequestDto filter) {
+        boolean byIds = ids != null && !ids.isEmpty();
+        boolean byFilter = filter != null;
+        if (byIds == byFilter) {
+            throw new IllegalArgumentException("Нужно передать либо ids, либо filter");
+        }
+
+        if (byIds) {
+            if (ids.size() > BATCH_MAX_SIZE) {
+                throw new IllegalArgumentException("За один запрос можно обработать не более " + BATCH_MAX_SIZE + " городов");
+            }
+            Set<Long> unique = new LinkedHashSet<>(ids);
+            unique.remove(null);
+            return unique;
+        }
+
+        if (countCache.isUnfiltered(filter)) {
+            throw new IllegalArgumentException("Фильтр для массовой операции не может быть пустым");
+        }
+        List<Long> matched = cityRepo.findIds(CitySpecifications.byRequest(filter), BATCH_MAX_SIZE + 1);
+        if (matched.size() > BATCH_MAX_SIZE) {
+            throw new IllegalArgumentException("Под фильтр попадает больше " + BATCH_MAX_SIZE + " городов, уточните его");
+        }
+        return matched;
     }
 
     private CityDto toDto(City e) {
@@ -413,6 +856,7 @@ public class CityService {
         dto.setTelephoneCode(e.getTelephoneCode());
         dto.setClimate(e.getClimate() != null ? e.getClimate().name() : null);
         dto.setGovernment(e.getGovernment() != null ? e.getGovernment().name() : null);
+        dto.setVersion(e.getVersion());
 
         dto.setCreationDate(e.getCreationDate());
         dto.setEstablishmentDate(e.getEstablishmentDate());
@@ -423,67 +867,58 @@ public class CityService {
         return dto;
     }
 
-    @Transactional(readOnly = true)
     public double averageTelephoneCode() {
-        var codes = cityRepo.findAll().stream()
-                .map(City::getTelephoneCode)
-                .filter(Objects::nonNull)
-                .mapToInt(Integer::intValue)
-                .toArray();
-        if (codes.length == 0) return 0.0d;
-        long sum = 0;
-        for (int c : codes) sum += c;
-        return (double) sum / codes.length;
+        return analytics.averageTelephoneCode();
     }
 
     @Transactional(readOnly = true)
-    public List<CityDto> findByNameStartsWith(String prefix) {
-        if (prefix == null) prefix = "";
-        final String p = prefix;
-        return cityRepo.findAll().stream()
-                .filter(c -> c.getName() != null && c.getName().startsWith(p))
+    public CursorPageDto<CityDto> findByNameStartsWith(String prefix, String cursor, Integer limit) {
+        int size = limit != null ? limit : NAME_SEARCH_DEFAULT_LIMIT;
+        if (size < 1 || size > NAME_SEARCH_MAX_LIMIT) {
+            throw new IllegalArgumentException("limit должен быть в диапазоне 1.." + NAME_SEARCH_MAX_LIMIT);
+        }
+        String afterName = (cursor == null || cursor.isBlank()) ? null : decodeNameCursor(cursor);
+
+        List<Map.Entry<String, Long>> hits = analytics.namesByPrefix(prefix, afterName, size + 1);
+        boolean hasMore = hits.size() > size;
+        if (hasMore) hits = hits.subList(0, size);
+        if (hits.isEmpty()) return new CursorPageDto<>(List.of(), null);
+
+        Map<Long, City> byId = cityRepo.findByIdIn(hits.stream().map(Map.Entry::getValue).toList()).stream()
+                .collect(Collectors.toMap(City::getId, c -> c));
+
+        List<CityDto> content = hits.stream()
+                .map(h -> byId.get(h.getValue()))
+                .filter(Objects::nonNull)
                 .map(CityDto::fromEntity)
                 .collect(Collectors.toList());
+
+        String nextCursor = hasMore ? encodeNameCursor(hits.get(hits.size() - 1).getKey()) : null;
+        return new CursorPageDto<>(content, nextCursor);
     }
 
-    @Transactional(readOnly = true)
-    public List<Integer> uniqueMetersAboveSeaLevel() {
-        return cityRepo.findAll().stream()
-                .map(City::getMetersAboveSeaLevel)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toCollection(() -> new TreeSet<Integer>()))
-                .stream()
-                .toList();
+    private static String encodeNameCursor(String name) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(name.getBytes(StandardCharsets.UTF_8));
     }
 
-    @Transactional(readOnly = true)
-    public double distanceToLargestAreaCity(double fromX, double fromY) {
-        Optional<City> maxAreaCity = cityRepo.findAll().stream()
-                .filter(c -> c.getArea() != null)
-                .max(Comparator.comparingInt(City::getArea));
+    private static String decodeNameCursor(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Некорректный cursor: " + cursor);
+        }
+    }
 
-        City city = maxAreaCity.orElseThrow(() -> new NoSuchElementException("Нет городов с заполненным area"));
-        if (city.getCoordinates() == null)
-            throw new NoSuchElementException("У города с max area отсутствуют координаты");
+    public List<Integer> uniqueMetersAboveSeaLevel() {
+        return analytics.uniqueMetersAboveSeaLevel();
+    }
 
-        double dx = city.getCoordinates().getX() - fromX;
-        double dy = city.getCoordinates().getY() - fromY;
-        return Math.sqrt(dx * dx + dy * dy);
+    public double distanceToLargestAreaCity(double fromX, double fromY) {
+        return analytics.distanceToLargestAreaCity(fromX, fromY);
     }
 
-    @Transactional(readOnly = true)
     public double distanceFromOriginToOldestCity() {
-        Optional<City> oldest = cityRepo.findAll().stream()
-                .filter(c -> c.getEstablishmentDate() != null)
-                .min(Comparator.comparing(City::getEstablishmentDate));
-
-        City city = oldest.orElseThrow(() -> new NoSuchElementException("Нет городов с establishmentDate"));
-        if (city.getCoordinates() == null)
-            throw new NoSuchElementException("У самого старого города отсутствуют координаты");
-
-        double x = city.getCoordinates().getX();
-        double y = city.getCoordinates().getY();
-        return Math.sqrt(x * x + y * y);
+        return analytics.distanceFromOriginToOldestCity();
     }
 
     private void afterCommit(Runnable r) {
@@ -516,16 +951,15 @@ public class CityService {
     if (governor == null) {
         throw new BusinessRuleViolationException(
                 "CAPITAL_REQUIRES_GOVERNOR",
-                "Город не может быть столицей без губернатора."
+                CAPITAL_WITHOUT_GOVERNOR_MESSAGE
         );
     }
 
 
-    float minHeightCm = 150.0f;
-    if (governor.getHeight() < minHeightCm) {
+    if (governor.getHeight() < CAPITAL_GOVERNOR_MIN_HEIGHT) {
         throw new BusinessRuleViolationException(
                 "CAPITAL_GOVERNOR_TOO_SHORT",
-                "Нельзя создать/обновить столицу: рост губернатора должен быть ≥ " + (int) minHeightCm + " см."
+                CAPITAL_GOVERNOR_TOO_SHORT_MESSAGE
         );
     }
 
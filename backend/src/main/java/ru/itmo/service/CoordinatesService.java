@@ -1,31 +1,37 @@
 package ru.itmo.service;
 
 import jakarta.persistence.EntityNotFoundException;
-import org.postgresql.util.PSQLException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.PlatformTransactionManager;
-import org.springframework.transaction.TransactionDefinition;
-import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
-import org.springframework.transaction.support.TransactionTemplate;
+import ru.itmo.analytics.CityAnalyticsSnapshot;
 import ru.itmo.domain.Coordinates;
 import ru.itmo.dto.CityPageDto;
 import ru.itmo.dto.CoordinatesDto;
 import ru.itmo.dto.CoordinatesPageDto;
 import ru.itmo.exception.BusinessRuleViolationException;
+import ru.itmo.exception.DbConstraints;
 import ru.itmo.exception.DeletionBlockedException;
 import ru.itmo.repository.CoordinatesRepository;
+import ru.itmo.repository.CoordinatesRepositoryCustom.Pair;
+import ru.itmo.repository.CoordinatesRepositoryCustom.UpsertedPair;
+import ru.itmo.retry.RetryOnConflict;
 import ru.itmo.specification.CoordinatesSpecifications;
 import ru.itmo.websocket.ChangeAction;
 import ru.itmo.websocket.WsEventPublisher;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
-import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -33,14 +39,14 @@ public class CoordinatesService {
 
     private final CoordinatesRepository repo;
     private final WsEventPublisher ws;
-    private final PlatformTransactionManager txManager;
+    private final CityAnalyticsSnapshot analytics;
 
     public CoordinatesService(CoordinatesRepository repo,
                               WsEventPublisher ws,
-                              PlatformTransactionManager txManager) {
+                              CityAnalyticsSnapshot analytics) {
         this.repo = repo;
         this.ws = ws;
-        this.txManager = txManager;
+        this.analytics = analytics;
     }
 
     @Transactional(readOnly = true)
@@ -51,66 +57,33 @@ public class CoordinatesService {
         return CityPageDto.fromPage(page.map(CoordinatesDto::fromEntity));
     }
 
-    private void validateUniquePair(float x, Float y, Long currentIdOrNull) {
-        boolean exists = (currentIdOrNull == null)
-                ? repo.existsByXAndY(x, y)
-                : repo.existsByXAndYAndIdNot(x, y, currentIdOrNull);
-
-        if (exists) {
-            throw new BusinessRuleViolationException(
-                    "COORDINATES_NOT_UNIQUE",
-                    "Пара координат должна быть уникальной: (" + x + ", " + y + ")"
-            );
-        }
-    }
-
-
-    private <T> T runSerializableWithRetry(Supplier<T> action) {
-        int maxAttempts = 3;
-        long backoffMs = 30;
-
-        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
-            try {
-                TransactionTemplate tt = new TransactionTemplate(txManager);
-                tt.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
-                return tt.execute(status -> action.get());
-            } catch (RuntimeException ex) {
-                if (isSerializationFailure(ex) && attempt < maxAttempts) {
-                    try {
-                        Thread.sleep(backoffMs);
-                    } catch (InterruptedException ignored) {
-                        Thread.currentThread().interrupt();
-                    }
-                    backoffMs *= 2;
-                    continue;
-                }
-                throw ex;
+    /**
+     * (x, y) uniqueness is enforced by uq_coordinates_xy; a clash surfaces at flush.
+     */
+    private Coordinates saveAndFlush(Coordinates coordinates) {
+        try {
+            Coordinates saved = repo.save(coordinates);
+            repo.flush();
+            return saved;
+        } catch (DataIntegrityViolationException ex) {
+            if (DbConstraints.isUniqueViolation(ex, DbConstraints.COORDINATES_XY_UNIQUE)) {
+                throw new BusinessRuleViolationException(
+                        "COORDINATES_NOT_UNIQUE",
+                        "Пара координат должна быть уникальной: (" + coordinates.getX() + ", " + coordinates.getY() + ")"
+                );
             }
+            throw ex;
         }
-        throw new IllegalStateException("Unreachable code");
     }
 
-    private boolean isSerializationFailure(Throwable ex) {
-        Throwable t = ex;
-        while (t.getCause() != null) t = t.getCause();
-        if (t instanceof PSQLException psql) {
-            return "40001".equals(psql.getSQLState());
-        }
-        return false;
-    }
-
-
+    @RetryOnConflict
+    @Transactional
     public CoordinatesDto create(CoordinatesDto coordinatesDto) {
-        return runSerializableWithRetry(() -> doCreate(coordinatesDto));
+        return doCreate(coordinatesDto);
     }
 
     private CoordinatesDto doCreate(CoordinatesDto coordinatesDto) {
-        Coordinates coordinates = coordinatesDto.toNewEntity();
-
-        validateUniquePair(coordinates.getX(), coordinates.getY(), null);
-
-        coordinates = repo.save(coordinates);
-        repo.flush();
+        Coordinates coordinates = saveAndFlush(coordinatesDto.toNewEntity());
 
         CoordinatesDto dto = CoordinatesDto.fromEntity(coordinates);
         Long id = dto.getId();
@@ -118,24 +91,27 @@ public class CoordinatesService {
         return dto;
     }
 
+    @RetryOnConflict
+    @Transactional
     public CoordinatesDto update(Long id, CoordinatesDto dto) {
-        return runSerializableWithRetry(() -> doUpdate(id, dto));
+        return doUpdate(id, dto);
     }
 
     private CoordinatesDto doUpdate(Long id, CoordinatesDto dto) {
         Coordinates e = repo.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Coordinates Not Found"));
+        if (dto.getVersion() != null && !dto.getVersion().equals(e.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Coordinates.class, id);
+        }
 
         dto.applyToEntity(e);
 
-        validateUniquePair(e.getX(), e.getY(), e.getId());
-
-        Coordinates saved = repo.save(e);
-        repo.flush();
+        Coordinates saved = saveAndFlush(e);
 
         CoordinatesDto updated = CoordinatesDto.fromEntity(saved);
         Long ids = updated.getId();
         afterCommit(() -> ws.sendChange("Coordinates", ChangeAction.UPDATED, ids, updated));
+        afterCommit(() -> analytics.onCoordinatesSaved(ids, updated.getX(), updated.getY()));
         return updated;
     }
 
@@ -178,12 +154,9 @@ public class CoordinatesService {
                 .orElseThrow(() -> new EntityNotFoundException("Coordinates Not Found"));
     }
 
-    @Transactional(isolation = Isolation.SERIALIZABLE)
+    @Transactional
     public Coordinates saveEntity(Coordinates coordinates) {
-        validateUniquePair(coordinates.getX(), coordinates.getY(), coordinates.getId());
-        Coordinates saved = repo.save(coordinates);
-        repo.flush();
-        return saved;
+        return saveAndFlush(coordinates);
     }
 
     @Transactional
@@ -198,12 +171,20 @@ public class CoordinatesService {
         return repo.findById(id);
     }
 
-    @Transactional(isolation = Isolation.SERIALIZABLE)
+    @Transactional(readOnly = true)
+    public List<Coordinates> findAllById(Collection<Long> ids) {
+        return repo.findAllById(ids);
+    }
+
+    /** Uninitialized proxy for an id already known to exist; no query is issued. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Coordinates getReference(Long id) {
+        return repo.getReferenceById(id);
+    }
+
+    @Transactional
     public Coordinates save(Coordinates coordinates) {
-        validateUniquePair(coordinates.getX(), coordinates.getY(), coordinates.getId());
-        Coordinates saved = repo.save(coordinates);
-        repo.flush();
-        return saved;
+        return saveAndFlush(coordinates);
     }
 
     @Transactional
@@ -229,10 +210,7 @@ public class CoordinatesService {
 
     @Transactional(propagation = Propagation.MANDATORY)
     public Coordinates saveNewAndNotify(Coordinates coordinates) {
-        validateUniquePair(coordinates.getX(), coordinates.getY(), null);
-
-        Coordinates saved = repo.save(coordinates);
-        repo.flush();
+        Coordinates saved = saveAndFlush(coordinates);
 
         CoordinatesDto dto = CoordinatesDto.fromEntity(saved);
         Long id = dto.getId();
@@ -242,17 +220,48 @@ public class CoordinatesService {
 
     @Transactional(propagation = Propagation.MANDATORY)
     public Coordinates saveUpdatedAndNotify(Coordinates coordinates) {
-        validateUniquePair(coordinates.getX(), coordinates.getY(), coordinates.getId());
-
-        Coordinates saved = repo.save(coordinates);
-        repo.flush();
+        Coordinates saved = saveAndFlush(coordinates);
 
         CoordinatesDto dto = CoordinatesDto.fromEntity(saved);
         Long id = dto.getId();
         afterCommit(() -> ws.sendChange("Coordinates", ChangeAction.UPDATED, id, dto));
+        afterCommit(() -> analytics.onCoordinatesSaved(id, dto.getX(), dto.getY()));
         return saved;
     }
 
+    /**
+     * Returns the coordinates with this (x, y), inserting them if they do not exist yet;
+     * race-free without SERIALIZABLE thanks to INSERT ... ON CONFLICT.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Coordinates findOrCreate(float x, float y) {
+        return findOrCreateAll(List.of(new Pair(x, y))).get(new Pair(x, y));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<Pair, Coordinates> findOrCreateAll(Collection<Pair> pairs) {
+        return findOrCreateAll(pairs, true);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<Pair, Coordinates> findOrCreateAll(Collection<Pair> pairs, boolean notifyCreated) {
+        if (pairs.isEmpty()) return Map.of();
+
+        List<UpsertedPair> upserted = repo.upsertPairs(new LinkedHashSet<>(pairs));
+        Map<Long, Coordinates> byId = repo.findAllById(upserted.stream().map(UpsertedPair::id).toList()).stream()
+                .collect(Collectors.toMap(Coordinates::getId, c -> c));
+
+        Map<Pair, Coordinates> out = new HashMap<>();
+        List<CoordinatesDto> created = new ArrayList<>();
+        for (UpsertedPair u : upserted) {
+            Coordinates c = byId.get(u.id());
+            out.put(u.pair(), c);
+            if (notifyCreated && u.inserted()) created.add(CoordinatesDto.fromEntity(c));
+        }
+        if (!created.isEmpty()) afterCommit(() -> created.forEach(dto -> ws.sendChange("Coordinates", ChangeAction.CREATED, dto.getId(), dto)));
+        return out;
+    }
+
     @Transactional
     public void deleteByIdAndNotify(Long id) {
         repo.deleteById(id);
@@ -8,15 +8,20 @@ import ru.itmo.dto.CityPageDto;
 import ru.itmo.domain.Human;
 import ru.itmo.websocket.ChangeAction;
 import ru.itmo.dto.HumanDto;
+import ru.itmo.lock.StripedLock;
 import ru.itmo.repository.HumanRepository;
+import ru.itmo.retry.RetryOnConflict;
 import ru.itmo.websocket.WsEventPublisher;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 
+import java.util.Collection;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.stream.Collectors;
@@ -52,12 +57,18 @@ public class HumanService {
         return dto;
     }
 
+    @StripedLock(entity = "Human")
+    @RetryOnConflict
     @Transactional
     public HumanDto update(Long id, HumanDto humanDto) {
         Human e = humanRepo.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Human Not Found"));
+        if (humanDto.getVersion() != null && !humanDto.getVersion().equals(e.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Human.class, id);
+        }
 
         humanDto.applyToEntity(e);
+        humanRepo.flush();
 
         HumanDto dto = HumanDto.fromEntity(e);
         Long ids = dto.getId();
@@ -154,6 +165,33 @@ public class HumanService {
         return saved;
     }
 
+    @Transactional(readOnly = true)
+    public List<Human> findAllById(Collection<Long> ids) {
+        return humanRepo.findAllById(ids);
+    }
+
+    /** Uninitialized proxy for an id already known to exist; no query is issued. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Human getReference(Long id) {
+        return humanRepo.getReferenceById(id);
+    }
+
+    /** Same as {@link #saveAllNewAndNotify} without per-row change events; used by the file import. */
+    @Transactional
+    public List<Human> saveAllNew(List<Human> humans) {
+        return humanRepo.saveAll(humans);
+    }
+
+    @Transactional
+    public List<Human> saveAllNewAndNotify(List<Human> humans) {
+        List<Human> saved = humanRepo.saveAll(humans);
+        afterCommit(() -> saved.forEach(h -> {
+            HumanDto dto = HumanDto.fromEntity(h);
+            ws.sendChange("Human", ChangeAction.CREATED, dto.getId(), dto);
+        }));
+        return saved;
+    }
+
     @Transactional
     public Human saveUpdatedAndNotify(Human human) {
         Human saved = humanRepo.save(human);
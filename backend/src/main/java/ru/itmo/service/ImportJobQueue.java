@@ -0,0 +1,126 @@
+package ru.itmo.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded worker pool for imports. A full queue rejects the job instead of buffering uploads
+ * without limit. Files waiting for or used by a job are spooled to {@code import.spoolDir}.
+ * <p>
+ * Jobs live only in this JVM, so whatever a previous run left behind is settled on startup:
+ * unfinished operations are closed and the spool directory is emptied. This assumes a single
+ * server instance per database.
+ */
+@Component
+public class ImportJobQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportJobQueue.class);
+
+    private final ImportOperationService importOpService;
+    private final ThreadPoolTaskExecutor executor;
+    private final Path spoolDir;
+    private final AtomicBoolean recovered = new AtomicBoolean(false);
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+
+    public ImportJobQueue(ImportOperationService importOpService, Environment env) {
+        this.importOpService = importOpService;
+        this.spoolDir = Path.of(env.getProperty("import.spoolDir",
+                Path.of(System.getProperty("java.io.tmpdir"), "city-import-spool").toString()));
+        try {
+            Files.createDirectories(spoolDir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось создать каталог " + spoolDir + ": " + e.getMessage(), e);
+        }
+
+        executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("import-");
+        executor.setCorePoolSize(Integer.parseInt(env.getProperty("import.async.workers", "2")));
+        executor.setMaxPoolSize(Integer.parseInt(env.getProperty("import.async.workers", "2")));
+        executor.setQueueCapacity(Integer.parseInt(env.getProperty("import.async.queueCapacity", "20")));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(Integer.parseInt(env.getProperty("import.async.shutdownWaitSeconds", "60")));
+        executor.initialize();
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void recoverOnStartup() {
+        if (!recovered.compareAndSet(false, true)) return;
+        try {
+            int settled = importOpService.settleInterrupted("Импорт прерван перезапуском сервера");
+            if (settled > 0) log.warn("Settled {} import operation(s) interrupted by a restart", settled);
+        } catch (RuntimeException e) {
+            log.warn("Interrupted import operations were not settled on startup: {}", e.getMessage());
+        }
+
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spoolDir)) {
+            for (Path f : files) {
+                if (Files.isRegularFile(f) && Files.deleteIfExists(f)) deleted++;
+            }
+        } catch (IOException e) {
+            log.warn("Import spool directory {} was not cleaned up: {}", spoolDir, e.getMessage());
+        }
+        if (deleted > 0) log.info("Deleted {} leftover file(s) from {}", deleted, spoolDir);
+    }
+
+    /** Directory for files handed to import jobs; it is emptied on every startup. */
+    public Path spoolDir() {
+        return spoolDir;
+    }
+
+    /**
+     * @throws TaskRejectedException when all workers are busy and the queue is full
+     */
+    public void submit(Runnable job) {
+        try {
+            executor.execute(() -> {
+                try {
+                    job.run();
+                } finally {
+                    completed.increment();
+                }
+            });
+            submitted.increment();
+        } catch (TaskRejectedException e) {
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("workers", executor.getMaxPoolSize());
+        out.put("active", executor.getActiveCount());
+        out.put("queued", executor.getQueueSize());
+        out.put("queueCapacity", executor.getQueueCapacity());
+        out.put("submitted", submitted.sum());
+        out.put("completed", completed.sum());
+        out.put("rejected", rejected.sum());
+        return out;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -1,5 +1,7 @@
 package ru.itmo.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -10,26 +12,36 @@ import org.springframework.transaction.support.TransactionSynchronizationManager
 import ru.itmo.domain.ImportOperation;
 import ru.itmo.domain.ImportStatus;
 import ru.itmo.dto.ImportOperationDto;
+import ru.itmo.exception.BusinessRuleViolationException;
+import ru.itmo.exception.ImportValidationException;
 import ru.itmo.repository.ImportOperationRepository;
 import ru.itmo.websocket.ChangeAction;
 import ru.itmo.websocket.WsEventPublisher;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 @Service
 public class ImportOperationService {
 
+    // the operation is also sent over WebSocket, so only the first errors are kept
+    private static final int STORED_VALIDATION_ERRORS = 200;
+
     private final ImportOperationRepository repo;
     private final WsEventPublisher ws;
+    private final ObjectMapper objectMapper;
 
-    public ImportOperationService(ImportOperationRepository repo, WsEventPublisher ws) {
+    public ImportOperationService(ImportOperationRepository repo, WsEventPublisher ws, ObjectMapper objectMapper) {
         this.repo = repo;
         this.ws = ws;
+        this.objectMapper = objectMapper;
     }
 
     @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public ImportOperation start(String txId, String sourceFilename, String bucketName) {
+    public ImportOperation start(String txId, String sourceFilename, String bucketName, boolean chunked) {
         ImportOperation op = new ImportOperation();
         op.setTxId(txId);
         op.setStatus(ImportStatus.IN_PROGRESS);
@@ -41,6 +53,10 @@ public class ImportOperationService {
         op.setFileBucket(bucketName);
         op.setFileStagingKey(null);
         op.setFileFinalKey(null);
+        op.setChunked(chunked);
+        op.setCommittedOffset(0);
+        op.setTotalCount(null);
+        op.setValidationErrors(null);
 
         op = repo.save(op);
         notifyCreated(op);
@@ -48,9 +64,10 @@ public class ImportOperationService {
     }
 
     @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void markFilePrepared(Long id, String stagingKey) {
+    public void markFilePrepared(Long id, String stagingKey, int totalCount) {
         ImportOperation op = getExisting(id);
         op.setStatus(ImportStatus.FILE_PREPARED);
+        op.setTotalCount(totalCount);
         op.setFileStagingKey(stagingKey);
         op.setErrorMessage(null);
         repo.save(op);
@@ -88,6 +105,55 @@ public class ImportOperationService {
         notifyUpdated(op);
     }
 
+    /**
+     * Runs inside the chunk's own transaction, so the offset and the chunk's rows commit together.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCommittedOffset(Long id, int committedOffset) {
+        ImportOperation op = getExisting(id);
+        op.setCommittedOffset(committedOffset);
+        repo.save(op);
+        notifyUpdated(op);
+    }
+
+    /**
+     * Failure of a chunked import after the file was committed: the file and the rows
+     * committed so far are kept so that {@link #markResumed} can pick it up again.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void markFailedResumable(Long id, String message) {
+        ImportOperation op = getExisting(id);
+        op.setStatus(ImportStatus.FAILED);
+        op.setFinishedAt(LocalDateTime.now());
+        op.setAddedCount(op.getCommittedOffset());
+        op.setErrorMessage(message);
+        repo.save(op);
+        notifyUpdated(op);
+    }
+
+    /**
+     * Moves a resumable import back to FILE_COMMITTED; the row lock makes a concurrent
+     * second resume of the same operation fail instead of importing twice.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public ImportOperation markResumed(Long id) {
+        ImportOperation op = repo.findByIdForUpdate(id)
+                .orElseThrow(() -> new NoSuchElementException("Import operation id=" + id + " not found"));
+        if (!op.isResumable()) {
+            throw new BusinessRuleViolationException(
+                    "IMPORT_NOT_RESUMABLE",
+                    "Импорт id=" + id + " нельзя продолжить: статус " + op.getStatus()
+            );
+        }
+        op.setStatus(ImportStatus.FILE_COMMITTED);
+        op.setFinishedAt(null);
+        op.setAddedCount(null);
+        op.setErrorMessage(null);
+        repo.save(op);
+        notifyUpdated(op);
+        return op;
+    }
+
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void markCompensated(Long id, String message) {
         ImportOperation op = getExisting(id);
@@ -112,6 +178,60 @@ public class ImportOperationService {
         notifyUpdated(op);
     }
 
+    /**
+     * Failure of a queued import whose file was rejected by validation: the per-record errors are
+     * kept on the operation, since there is no request left to answer with them. {@code total}
+     * counts every reported error, {@code items} holds the first of them.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void markValidationFailed(Long id, ImportValidationException ex) {
+        List<ImportValidationException.ItemError> errors = ex.getErrors();
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("items", errors.subList(0, Math.min(errors.size(), STORED_VALIDATION_ERRORS)));
+        details.put("total", errors.size());
+        details.put("truncated", ex.isTruncated());
+
+        ImportOperation op = getExisting(id);
+        op.setStatus(ImportStatus.FAILED);
+        op.setFinishedAt(LocalDateTime.now());
+        op.setAddedCount(null);
+        op.setErrorMessage(ex.getMessage());
+        try {
+            op.setValidationErrors(objectMapper.writeValueAsString(details));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сохранить ошибки валидации: " + e.getMessage(), e);
+        }
+        repo.save(op);
+        notifyUpdated(op);
+    }
+
+    /**
+     * Settles the operations a previous run of the server left unfinished. Those whose rows were
+     * committed succeed; the rest fail, and a chunked one with a committed file stays resumable.
+     *
+     * @return how many operations were settled
+     */
+    @Transactional
+    public int settleInterrupted(String message) {
+        List<ImportOperation> ops = repo.findByStatusIn(List.of(
+                ImportStatus.IN_PROGRESS, ImportStatus.FILE_PREPARED, ImportStatus.FILE_COMMITTED, ImportStatus.DB_COMMITTED));
+        for (ImportOperation op : ops) {
+            op.setFinishedAt(LocalDateTime.now());
+            if (op.getStatus() == ImportStatus.DB_COMMITTED) {
+                op.setStatus(ImportStatus.SUCCESS);
+                op.setAddedCount(op.isChunked() ? op.getCommittedOffset() : op.getTotalCount());
+                op.setErrorMessage(null);
+            } else {
+                op.setStatus(ImportStatus.FAILED);
+                op.setAddedCount(op.isChunked() ? op.getCommittedOffset() : null);
+                op.setErrorMessage(message);
+            }
+            repo.save(op);
+            notifyUpdated(op);
+        }
+        return ops.size();
+    }
+
     @Transactional(readOnly = true)
     public Page<ImportOperation> list(Pageable pageable) {
         return repo.findAllByOrderByStartedAtDesc(pageable);
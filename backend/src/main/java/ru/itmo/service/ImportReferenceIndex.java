@@ -0,0 +1,136 @@
+package ru.itmo.service;
+
+import ru.itmo.dto.CityDto;
+import ru.itmo.exception.ImportValidationException;
+import ru.itmo.repository.CityRepositoryCustom.ExistingReferences;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Names and coordinatesId/governorId references of one import file. Filled chunk by chunk
+ * during the validation pass and resolved against the database once, so inserting a chunk
+ * needs no lookups of its own. The capital rule is checked here as well: inline governors
+ * while collecting, referenced ones against the heights the resolve query returns.
+ */
+public class ImportReferenceIndex {
+
+    private final Map<String, Integer> firstIndexByName = new HashMap<>();
+    private final Map<Long, List<Integer>> coordinatesRefs = new HashMap<>();
+    private final Map<Long, List<Integer>> governorRefs = new HashMap<>();
+    private final Map<Long, List<Integer>> capitalGovernorRefs = new HashMap<>();
+    private boolean resolved;
+
+    /**
+     * Records the chunk's names and references. A name seen earlier in the file and a capital
+     * without a governor or with a too short inline one are reported here.
+     */
+    public void collect(List<CityDto> chunk, int baseIndex, List<ImportValidationException.ItemError> errors) {
+        for (int n = 0; n < chunk.size(); n++) {
+            CityDto dto = chunk.get(n);
+            if (dto == null) continue;
+            int i = baseIndex + n;
+
+            if (dto.getName() != null && !dto.getName().isBlank()) {
+                Integer first = firstIndexByName.putIfAbsent(nameKey(dto.getName()), i);
+                if (first != null) {
+                    errors.add(new ImportValidationException.ItemError(i, "name",
+                            "Название города повторяется в файле (запись " + first + "): " + dto.getName().trim()));
+                }
+            }
+            if (dto.getCoordinatesId() != null) {
+                coordinatesRefs.computeIfAbsent(dto.getCoordinatesId(), k -> new ArrayList<>(1)).add(i);
+            }
+            if (dto.getGovernorId() != null) {
+                governorRefs.computeIfAbsent(dto.getGovernorId(), k -> new ArrayList<>(1)).add(i);
+            }
+            if (Boolean.TRUE.equals(dto.getCapital())) {
+                collectCapital(dto, i, errors);
+            }
+        }
+    }
+
+    private void collectCapital(CityDto dto, int i, List<ImportValidationException.ItemError> errors) {
+        if (dto.getGovernorId() != null) {
+            capitalGovernorRefs.computeIfAbsent(dto.getGovernorId(), k -> new ArrayList<>(1)).add(i);
+        } else if (dto.getGovernor() == null) {
+            errors.add(new ImportValidationException.ItemError(i, "capital", CityService.CAPITAL_WITHOUT_GOVERNOR_MESSAGE));
+        } else if (dto.getGovernor().getHeight() != null
+                && dto.getGovernor().getHeight() < CityService.CAPITAL_GOVERNOR_MIN_HEIGHT) {
+            errors.add(new ImportValidationException.ItemError(i, "capital", CityService.CAPITAL_GOVERNOR_TOO_SHORT_MESSAGE));
+        }
+    }
+
+    Set<String> lowerNames() {
+        return firstIndexByName.keySet();
+    }
+
+    Set<Long> coordinatesIds() {
+        return coordinatesRefs.keySet();
+    }
+
+    Set<Long> governorIds() {
+        return governorRefs.keySet();
+    }
+
+    /**
+     * Reports names already taken in the database, references to missing rows and capitals whose
+     * referenced governor is too short. Afterwards only the existing ids are kept, which is what
+     * {@link #hasCoordinates}/{@link #hasGovernor} answer from.
+     */
+    List<ImportValidationException.ItemError> resolve(ExistingReferences existing) {
+        List<ImportValidationException.ItemError> errors = new ArrayList<>();
+
+        existing.lowerNames().forEach(name -> {
+            Integer i = firstIndexByName.get(name);
+            if (i != null) {
+                errors.add(new ImportValidationException.ItemError(i, "name", "Название города должно быть уникальным: " + name));
+            }
+        });
+        coordinatesRefs.forEach((id, indexes) -> {
+            if (!existing.coordinatesIds().contains(id)) {
+                indexes.forEach(i -> errors.add(new ImportValidationException.ItemError(
+                        i, "coordinatesId", "Coordinates not found: " + id)));
+            }
+        });
+        governorRefs.forEach((id, indexes) -> {
+            if (!existing.governorHeights().containsKey(id)) {
+                indexes.forEach(i -> errors.add(new ImportValidationException.ItemError(
+                        i, "governorId", "Human not found: " + id)));
+            }
+        });
+        capitalGovernorRefs.forEach((id, indexes) -> {
+            Float height = existing.governorHeights().get(id);
+            if (height != null && height < CityService.CAPITAL_GOVERNOR_MIN_HEIGHT) {
+                indexes.forEach(i -> errors.add(new ImportValidationException.ItemError(
+                        i, "capital", CityService.CAPITAL_GOVERNOR_TOO_SHORT_MESSAGE)));
+            }
+        });
+
+        coordinatesRefs.keySet().retainAll(existing.coordinatesIds());
+        governorRefs.keySet().retainAll(existing.governorHeights().keySet());
+        capitalGovernorRefs.clear();
+        resolved = true;
+        return errors;
+    }
+
+    public boolean isResolved() {
+        return resolved;
+    }
+
+    boolean hasCoordinates(Long id) {
+        return coordinatesRefs.containsKey(id);
+    }
+
+    boolean hasGovernor(Long id) {
+        return governorRefs.containsKey(id);
+    }
+
+    static String nameKey(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+}
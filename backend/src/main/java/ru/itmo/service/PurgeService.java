@@ -2,6 +2,10 @@ package ru.itmo.service;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.itmo.analytics.CityAnalyticsSnapshot;
+import ru.itmo.cache.CityCountCache;
 import ru.itmo.repository.CityRepository;
 import ru.itmo.repository.CoordinatesRepository;
 import ru.itmo.repository.HumanRepository;
@@ -13,15 +17,21 @@ public class PurgeService {
     private final HumanRepository humanRepo;
     private final CoordinatesRepository coordinatesRepo;
     private final InfraFailureSimulationService infraFailures;
+    private final CityAnalyticsSnapshot analytics;
+    private final CityCountCache countCache;
 
     public PurgeService(CityRepository cityRepo,
                         HumanRepository humanRepo,
                         CoordinatesRepository coordinatesRepo,
-                        InfraFailureSimulationService infraFailures) {
+                        InfraFailureSimulationService infraFailures,
+                        CityAnalyticsSnapshot analytics,
+                        CityCountCache countCache) {
         this.cityRepo = cityRepo;
         this.humanRepo = humanRepo;
         this.coordinatesRepo = coordinatesRepo;
         this.infraFailures = infraFailures;
+        this.analytics = analytics;
+        this.countCache = countCache;
     }
 
     @Transactional
@@ -30,5 +40,17 @@ public class PurgeService {
         cityRepo.deleteAllInBatch();
         humanRepo.deleteAllInBatch();
         coordinatesRepo.deleteAllInBatch();
+        afterCommit(analytics::reset);
+        afterCommit(countCache::invalidateAll);
+    }
+
+    private void afterCommit(Runnable r) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override public void afterCommit() { r.run(); }
+            });
+        } else {
+            r.run();
+        }
     }
 }
\ No newline at end of file
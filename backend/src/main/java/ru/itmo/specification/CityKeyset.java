@@ -0,0 +1,246 @@
+package ru.itmo.specification;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import ru.itmo.config.KeysetFunctions;
+import ru.itmo.domain.City;
+import ru.itmo.dto.CityDto;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Keyset (seek) pagination for cities: the cursor carries the sort-key values of the
+ * last returned row plus its id, and {@link #after} turns it back into a
+ * "(k1, ..., id) &gt; (v1, ..., lastId)" predicate that respects each order's
+ * direction and null placement, so every page costs the same as the first one:
+ * the predicate always carries an index-usable bound on the leading key.
+ */
+public final class CityKeyset {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /** Sort properties whose column (or LEFT-joined governor) can be NULL; the rest need no NULL branches. */
+    private static final Set<String> NULLABLE = Set.of(
+            "establishmentDate", "metersAboveSeaLevel", "government", "governor.id", "governor.height");
+
+    private CityKeyset() {}
+
+    public static String encode(Sort sort, CityDto last) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("s", fingerprint(sort));
+        List<Object> values = new ArrayList<>();
+        for (Sort.Order o : sort) {
+            values.add(toJsonValue(valueOf(last, o.getProperty())));
+        }
+        body.put("v", values);
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(body));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode cursor", e);
+        }
+    }
+
+    public static Specification<City> after(Sort sort, String cursor) {
+        List<Object> values = decode(sort, cursor);
+        List<Sort.Order> orders = sort.toList();
+
+        return (root, q, cb) -> {
+            List<Path<?>> paths = new ArrayList<>();
+            List<Object> typed = new ArrayList<>();
+            for (int i = 0; i < orders.size(); i++) {
+                Path<?> path = path(root, orders.get(i).getProperty());
+                paths.add(path);
+                typed.add(fromJsonValue(values.get(i), path.getJavaType(), orders.get(i).getProperty()));
+            }
+
+            Predicate rowValue = rowValueAfter(cb, orders, paths, typed);
+            if (rowValue != null) return rowValue;
+
+            List<Predicate> alternatives = new ArrayList<>();
+            List<Predicate> equalPrefix = new ArrayList<>();
+
+            for (int i = 0; i < orders.size(); i++) {
+                Sort.Order o = orders.get(i);
+                Path<?> path = paths.get(i);
+                Object value = typed.get(i);
+
+                List<Predicate> branch = new ArrayList<>(equalPrefix);
+                branch.add(strictlyAfter(cb, path, value, o));
+                alternatives.add(cb.and(branch.toArray(new Predicate[0])));
+
+                equalPrefix.add(same(cb, path, value));
+            }
+            // the OR chain alone is only a filter; the bound on the leading key lets the index seek
+            return cb.and(leadingBound(cb, paths.get(0), typed.get(0), orders.get(0)),
+                    cb.or(alternatives.toArray(new Predicate[0])));
+        };
+    }
+
+    /**
+     * {@code (k1, k2) > (v1, v2)} when both keys go the same direction and can't be NULL (no enums),
+     * which PostgreSQL turns into a single index condition; null otherwise.
+     */
+    private static Predicate rowValueAfter(CriteriaBuilder cb, List<Sort.Order> orders, List<Path<?>> paths, List<Object> values) {
+        if (orders.size() != 2 || orders.get(0).getDirection() != orders.get(1).getDirection()) return null;
+        for (int i = 0; i < 2; i++) {
+            // enum columns are bound through their attribute converter, which a bare literal would bypass
+            if (values.get(i) == null || values.get(i) instanceof Enum<?> || NULLABLE.contains(orders.get(i).getProperty())) {
+                return null;
+            }
+        }
+        String fn = orders.get(0).isAscending() ? KeysetFunctions.ROW_AFTER : KeysetFunctions.ROW_BEFORE;
+        return cb.isTrue(cb.function(fn, Boolean.class,
+                paths.get(0), paths.get(1), cb.literal(values.get(0)), cb.literal(values.get(1))));
+    }
+
+    /** Everything after the cursor satisfies this; unlike the OR chain it is usable as an index condition. */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate leadingBound(CriteriaBuilder cb, Path<?> path, Object value, Sort.Order o) {
+        boolean nullsLast = nullsLast(o);
+        if (value == null) {
+            // past the first NULL only the NULL tail is left; with NULLs first any row may follow
+            return nullsLast ? cb.isNull(path) : cb.conjunction();
+        }
+        Expression<Comparable> e = (Expression<Comparable>) path;
+        Predicate bound = o.isAscending()
+                ? cb.greaterThanOrEqualTo(e, (Comparable) value)
+                : cb.lessThanOrEqualTo(e, (Comparable) value);
+        return nullsLast && NULLABLE.contains(o.getProperty()) ? cb.or(bound, cb.isNull(path)) : bound;
+    }
+
+    private static List<Object> decode(Sort sort, String cursor) {
+        Map<?, ?> body;
+        try {
+            body = MAPPER.readValue(Base64.getUrlDecoder().decode(cursor.trim()), Map.class);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Некорректный cursor");
+        }
+
+        if (!fingerprint(sort).equals(body.get("s"))) {
+            throw new IllegalArgumentException("cursor был выдан для другой сортировки");
+        }
+        Object v = body.get("v");
+        if (!(v instanceof List<?> values) || values.size() != sort.toList().size()) {
+            throw new IllegalArgumentException("Некорректный cursor");
+        }
+        return new ArrayList<>(values);
+    }
+
+    private static String fingerprint(Sort sort) {
+        return sort.stream()
+                .map(o -> o.getProperty() + ":" + o.getDirection() + ":" + (nullsLast(o) ? "NL" : "NF"))
+                .collect(Collectors.joining(","));
+    }
+
+    private static boolean nullsLast(Sort.Order o) {
+        return switch (o.getNullHandling()) {
+            case NULLS_LAST -> true;
+            case NULLS_FIRST -> false;
+            // PostgreSQL sorts NULL as the largest value
+            case NATIVE -> o.isAscending();
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate strictlyAfter(CriteriaBuilder cb, Path<?> path, Object value, Sort.Order o) {
+        Expression<Comparable> e = (Expression<Comparable>) path;
+        boolean nullsLast = nullsLast(o);
+
+        if (value == null) {
+            // nothing sorts after NULL when NULLs go last, every non-null value does otherwise
+            return nullsLast ? cb.disjunction() : cb.isNotNull(path);
+        }
+
+        Predicate beyond = o.isAscending()
+                ? cb.greaterThan(e, (Comparable) value)
+                : cb.lessThan(e, (Comparable) value);
+        return nullsLast && NULLABLE.contains(o.getProperty()) ? cb.or(beyond, cb.isNull(path)) : beyond;
+    }
+
+    private static Predicate same(CriteriaBuilder cb, Path<?> path, Object value) {
+        return value == null ? cb.isNull(path) : cb.equal(path, value);
+    }
+
+    private static Path<?> path(Root<City> root, String property) {
+        int dot = property.indexOf('.');
+        if (dot < 0) return root.get(property);
+        return join(root, property.substring(0, dot)).get(property.substring(dot + 1));
+    }
+
+    private static From<?, ?> join(Root<City> root, String assoc) {
+        for (Join<City, ?> j : root.getJoins()) {
+            if (j.getAttribute().getName().equals(assoc) && j.getJoinType() == JoinType.LEFT) {
+                return j;
+            }
+        }
+        return root.join(assoc, JoinType.LEFT);
+    }
+
+    private static Object valueOf(CityDto c, String property) {
+        return switch (property) {
+            case "id" -> c.getId();
+            case "name" -> c.getName();
+            case "creationDate" -> c.getCreationDate();
+            case "area" -> c.getArea();
+            case "population" -> c.getPopulation();
+            case "establishmentDate" -> c.getEstablishmentDate();
+            case "capital" -> c.getCapital();
+            case "metersAboveSeaLevel" -> c.getMetersAboveSeaLevel();
+            case "telephoneCode" -> c.getTelephoneCode();
+            case "climate" -> c.getClimate();
+            case "government" -> c.getGovernment();
+            case "coordinates.id" -> c.getCoordinates() != null ? c.getCoordinates().getId() : null;
+            case "coordinates.x" -> c.getCoordinates() != null ? c.getCoordinates().getX() : null;
+            case "coordinates.y" -> c.getCoordinates() != null ? c.getCoordinates().getY() : null;
+            case "governor.id" -> c.getGovernor() != null ? c.getGovernor().getId() : null;
+            case "governor.height" -> c.getGovernor() != null ? c.getGovernor().getHeight() : null;
+            default -> throw new IllegalArgumentException("Сортировка по полю " + property + " не поддерживается в режиме cursor");
+        };
+    }
+
+    private static Object toJsonValue(Object v) {
+        if (v instanceof java.sql.Date d) return d.toLocalDate().toString();
+        if (v instanceof java.util.Date d) return d.toInstant().atZone(ZoneId.systemDefault()).toLocalDate().toString();
+        if (v instanceof LocalDate d) return d.toString();
+        if (v instanceof Enum<?> e) return e.name();
+        return v;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object fromJsonValue(Object v, Class<?> type, String property) {
+        if (v == null) return null;
+        try {
+            if (type == Long.class || type == long.class) return ((Number) v).longValue();
+            if (type == Integer.class || type == int.class) return ((Number) v).intValue();
+            if (type == Float.class || type == float.class) return ((Number) v).floatValue();
+            if (type == Double.class || type == double.class) return ((Number) v).doubleValue();
+            if (type == Boolean.class || type == boolean.class) return (Boolean) v;
+            if (type == String.class) return (String) v;
+            if (type == LocalDate.class) return LocalDate.parse((String) v);
+            if (java.util.Date.class.isAssignableFrom(type)) return java.sql.Date.valueOf(LocalDate.parse((String) v));
+            if (type.isEnum()) return Enum.valueOf((Class<? extends Enum>) type, (String) v);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Некорректное значение cursor для поля " + property);
+        }
+        throw new IllegalArgumentException("Сортировка по полю " + property + " не поддерживается в режиме cursor");
+    }
+}
@@ -1,6 +1,12 @@
 package ru.itmo.specification;
 
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import ru.itmo.config.TrigramFunctions;
 import ru.itmo.domain.City;
 import ru.itmo.domain.Climate;
 import ru.itmo.domain.Government;
@@ -8,6 +14,7 @@ import org.springframework.data.jpa.domain.Specification;
 import ru.itmo.dto.PageRequestDto;
 
 import java.util.Arrays;
+import java.util.List;
 import java.util.Locale;
 import java.util.stream.Collectors;
 
@@ -17,12 +24,16 @@ import java.time.LocalDate;
 
 public final class CitySpecifications {
 
+    private static final char LIKE_ESCAPE = '\\';
+
     private CitySpecifications() {}
 
     public static Specification<City> byRequest(PageRequestDto rq) {
         return Specification
                 .where(eqLong("id", rq.getId()))
-                .and(containsIgnoreCase("name", rq.getName()))
+                .and(isFuzzyNameSearch(rq)
+                        ? similarIgnoreCase("name", rq.getName())
+                        : containsIgnoreCase("name", rq.getName()))
                 .and(eqEnumName("climate", rq.getClimate(), Climate.class))
                 .and(eqEnumName("government", rq.getGovernment(), Government.class))
                 .and(eqLong("population", rq.getPopulation()))
@@ -34,7 +45,15 @@ public final class CitySpecifications {
                 .and(nestedEq("governor", "id", rq.getGovernorId()))
                 .and(nestedNullCheck("governor", "id", rq.getGovernorIdIsNull()))
                 .and(eqDate("creationDate", rq.getCreationDate()))
-                .and(eqDate("establishmentDate", rq.getEstablishmentDate()));
+                .and(eqDate("establishmentDate", rq.getEstablishmentDate()))
+                .and(inEnumNames("climate", rq.getClimateIn(), Climate.class))
+                .and(inEnumNames("government", rq.getGovernmentIn(), Government.class))
+                .and(between("population", rq.getPopulationMin(), rq.getPopulationMax()))
+                .and(between("area", rq.getAreaMin(), rq.getAreaMax()))
+                .and(between("telephoneCode", rq.getTelephoneCodeMin(), rq.getTelephoneCodeMax()))
+                .and(between("metersAboveSeaLevel", rq.getMetersAboveSeaLevelMin(), rq.getMetersAboveSeaLevelMax()))
+                .and(localDateBetween("creationDate", rq.getCreationDateFrom(), rq.getCreationDateTo()))
+                .and(utilDateBetween("establishmentDate", rq.getEstablishmentDateFrom(), rq.getEstablishmentDateTo()));
     }
 
 
@@ -58,9 +77,39 @@ public final class CitySpecifications {
         };
     }
 
+    public static boolean isFuzzyNameSearch(PageRequestDto rq) {
+        return Boolean.TRUE.equals(rq.getFuzzy()) && rq.getName() != null && !rq.getName().isBlank();
+    }
+
+    /**
+     * Trigram similarity of lower(field) to the term; used to rank fuzzy name search.
+     */
+    public static Expression<Float> similarity(Root<City> root, CriteriaBuilder cb, String field, String value) {
+        return cb.function(TrigramFunctions.SIMILARITY, Float.class,
+                cb.lower(root.get(field)), cb.literal(value.trim().toLowerCase(Locale.ROOT)));
+    }
+
+    // served by idx_city_name_trgm: lower(name) gin_trgm_ops
     private static Specification<City> containsIgnoreCase(String field, String value) {
         if (value == null || value.isBlank()) return null;
-        return (root, q, cb) -> cb.like(cb.lower(root.get(field)), "%" + value.toLowerCase() + "%");
+        String pattern = "%" + escapeLike(value.toLowerCase(Locale.ROOT)) + "%";
+        return (root, q, cb) -> cb.like(cb.lower(root.get(field)), pattern, LIKE_ESCAPE);
+    }
+
+    private static Specification<City> similarIgnoreCase(String field, String value) {
+        if (value == null || value.isBlank()) return null;
+        String term = value.trim().toLowerCase(Locale.ROOT);
+        return (root, q, cb) -> cb.isTrue(cb.function(TrigramFunctions.MATCH, Boolean.class,
+                cb.lower(root.get(field)), cb.literal(term)));
+    }
+
+    private static String escapeLike(String value) {
+        StringBuilder sb = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == LIKE_ESCAPE || c == '%' || c == '_') sb.append(LIKE_ESCAPE);
+            sb.append(c);
+        }
+        return sb.toString();
     }
 
     private static <E extends Enum<E>> Specification<City> eqEnumName(String field, String value, Class<E> enumClass) {
@@ -81,6 +130,53 @@ public final class CitySpecifications {
                 : cb.isNotNull(root.join(assoc, JoinType.LEFT).get(nestedField));
     }
 
+    private static <E extends Enum<E>> Specification<City> inEnumNames(String field, List<String> values, Class<E> enumClass) {
+        if (values == null) return null;
+        List<E> enums = values.stream()
+                .filter(v -> v != null && !v.isBlank())
+                .map(v -> Enum.valueOf(enumClass, v.trim().toUpperCase(Locale.ROOT)))
+                .distinct()
+                .toList();
+        if (enums.isEmpty()) return null;
+        return (root, q, cb) -> root.get(field).in(enums);
+    }
+
+    private static <T extends Comparable<? super T>> Specification<City> between(String field, T min, T max) {
+        if (min == null && max == null) return null;
+        if (min != null && max != null && min.compareTo(max) > 0) {
+            throw new IllegalArgumentException(field + "Min не может быть больше " + field + "Max");
+        }
+        return (root, q, cb) -> range(cb, root.get(field), min, max);
+    }
+
+    // for LocalDate attributes (creationDate)
+    private static Specification<City> localDateBetween(String field, LocalDate from, LocalDate to) {
+        if (!checkDateRange(field, from, to)) return null;
+        return (root, q, cb) -> range(cb, root.get(field), from, to);
+    }
+
+    // for java.util.Date attributes (establishmentDate)
+    private static Specification<City> utilDateBetween(String field, LocalDate from, LocalDate to) {
+        if (!checkDateRange(field, from, to)) return null;
+        java.util.Date lo = from != null ? java.sql.Date.valueOf(from) : null;
+        java.util.Date hi = to != null ? java.sql.Date.valueOf(to) : null;
+        return (root, q, cb) -> range(cb, root.get(field), lo, hi);
+    }
+
+    /** False when neither bound is set. */
+    private static boolean checkDateRange(String field, LocalDate from, LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException(field + "From не может быть позже " + field + "To");
+        }
+        return from != null || to != null;
+    }
+
+    private static <T extends Comparable<? super T>> Predicate range(CriteriaBuilder cb, Path<T> path, T lo, T hi) {
+        if (lo == null) return cb.lessThanOrEqualTo(path, hi);
+        if (hi == null) return cb.greaterThanOrEqualTo(path, lo);
+        return cb.between(path, lo, hi);
+    }
+
     private static Specification<City> eqLong(String field, Long val) {
         if (val == null) return null;
         return (root, q, cb) -> cb.equal(root.get(field), val);
@@ -2,12 +2,27 @@ package ru.itmo.storage;
 
 import ru.itmo.dto.MinioStoredFileDto;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
 
 public interface ImportFileStorageService {
     String getBucketName();
 
-    String prepare(String txId, byte[] fileBytes, String originalFilename);
+    default String prepare(String txId, byte[] fileBytes, String originalFilename) {
+        return prepare(txId, new ByteArrayInputStream(fileBytes), fileBytes.length, originalFilename);
+    }
+
+    /**
+     * Streams {@code content} into the staging area; {@code sizeBytes} may be -1 when unknown.
+     * The stream is read but not closed.
+     */
+    String prepare(String txId, InputStream content, long sizeBytes, String originalFilename);
 
     String commitPrepared(String txId, String stagingKey, String originalFilename);
 
@@ -15,7 +30,36 @@ public interface ImportFileStorageService {
 
     void rollbackCommittedQuietly(String finalKey);
 
-    StoredImportFile download(String finalKey);
+    default StoredImportFile download(String finalKey) {
+        try (StoredImportStream stream = openDownload(finalKey)) {
+            return new StoredImportFile(stream.getContent().readAllBytes(), stream.getContentType());
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to download import file: " + e.getMessage(), e);
+        }
+    }
+
+    StoredImportStream openDownload(String finalKey);
+
+    /**
+     * Copies the object into a temp file in {@code dir} the caller is responsible for deleting,
+     * for consumers that need to read it more than once.
+     */
+    default Path downloadToTempFile(String finalKey, Path dir) {
+        Path tmp = null;
+        try (StoredImportStream stream = openDownload(finalKey)) {
+            tmp = Files.createTempFile(dir, "import-", ".json");
+            Files.copy(stream.getContent(), tmp, StandardCopyOption.REPLACE_EXISTING);
+            return tmp;
+        } catch (IOException e) {
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                }
+            }
+            throw new UncheckedIOException("Failed to spool import file to disk: " + e.getMessage(), e);
+        }
+    }
 
     List<MinioStoredFileDto> listCommittedFiles();
 }
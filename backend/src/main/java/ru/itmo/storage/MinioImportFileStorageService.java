@@ -22,7 +22,8 @@ import ru.itmo.service.InfraFailureSimulationService;
 import ru.itmo.websocket.ChangeAction;
 import ru.itmo.websocket.WsEventPublisher;
 
-import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
@@ -40,17 +41,20 @@ public class MinioImportFileStorageService implements ImportFileStorageService {
     private final MinioClient minioClient;
     private final String bucketName;
     private final boolean autoCreateBucket;
+    private final long partSize;
     private final WsEventPublisher ws;
     private final InfraFailureSimulationService infraFailures;
 
     public MinioImportFileStorageService(MinioClient minioClient,
                                          @Value("${minio.bucket:${MINIO_BUCKET:avatars}}") String bucketName,
                                          @Value("${minio.autoCreateBucket:${MINIO_AUTO_CREATE_BUCKET:true}}") boolean autoCreateBucket,
+                                         @Value("${minio.partSizeBytes:${MINIO_PART_SIZE_BYTES:10485760}}") long partSize,
                                          WsEventPublisher ws,
                                          InfraFailureSimulationService infraFailures) {
         this.minioClient = minioClient;
         this.bucketName = bucketName;
         this.autoCreateBucket = autoCreateBucket;
+        this.partSize = partSize;
         this.ws = ws;
         this.infraFailures = infraFailures;
     }
@@ -77,15 +81,16 @@ public class MinioImportFileStorageService implements ImportFileStorageService {
     }
 
     @Override
-    public String prepare(String txId, byte[] fileBytes, String originalFilename) {
+    public String prepare(String txId, InputStream content, long sizeBytes, String originalFilename) {
         infraFailures.assertMinioAvailable();
         String objectKey = "imports/staging/" + txId + "/" + normalizeFilename(originalFilename, txId);
         try {
+            // files larger than one part (or of unknown size) go up as a multipart upload
             minioClient.putObject(PutObjectArgs.builder()
                     .bucket(bucketName)
                     .object(objectKey)
                     .contentType("application/json")
-                    .stream(new ByteArrayInputStream(fileBytes), fileBytes.length, -1)
+                    .stream(content, sizeBytes, partSize)
                     .build());
             return objectKey;
         } catch (Exception e) {
@@ -130,14 +135,26 @@ public class MinioImportFileStorageService implements ImportFileStorageService {
     }
 
     @Override
-    public StoredImportFile download(String objectKey) {
+    public StoredImportStream openDownload(String objectKey) {
         infraFailures.assertMinioAvailable();
-        try (GetObjectResponse response = minioClient.getObject(GetObjectArgs.builder()
-                .bucket(bucketName)
-                .object(objectKey)
-                .build())) {
-            String contentType = response.headers() != null ? response.headers().get("Content-Type") : null;
-            return new StoredImportFile(response.readAllBytes(), contentType);
+        try {
+            GetObjectResponse response = minioClient.getObject(GetObjectArgs.builder()
+                    .bucket(bucketName)
+                    .object(objectKey)
+                    .build());
+            try {
+                String contentType = response.headers() != null ? response.headers().get("Content-Type") : null;
+                String length = response.headers() != null ? response.headers().get("Content-Length") : null;
+                return new StoredImportStream(response, length != null ? Long.parseLong(length) : -1, contentType);
+            } catch (RuntimeException e) {
+                // the stream is not handed over, so its pooled connection is released here
+                try {
+                    response.close();
+                } catch (IOException closeFailure) {
+                    e.addSuppressed(closeFailure);
+                }
+                throw e;
+            }
         } catch (Exception e) {
             throw new IllegalStateException("Failed to download import file from MinIO: " + e.getMessage(), e);
         }
@@ -0,0 +1,39 @@
+package ru.itmo.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Open stream over a stored import file; the caller must close it to release the
+ * underlying HTTP connection to the object store.
+ */
+public class StoredImportStream implements Closeable {
+    private final InputStream content;
+    private final long sizeBytes;
+    private final String contentType;
+
+    public StoredImportStream(InputStream content, long sizeBytes, String contentType) {
+        this.content = content;
+        this.sizeBytes = sizeBytes;
+        this.contentType = (contentType == null || contentType.isBlank()) ? "application/json" : contentType;
+    }
+
+    public InputStream getContent() {
+        return content;
+    }
+
+    /** -1 when the store did not report a length. */
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public void close() throws IOException {
+        content.close();
+    }
+}
@@ -0,0 +1,41 @@
+package ru.itmo.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import ru.itmo.dto.CityDto;
+import ru.itmo.service.CityService;
+import ru.itmo.support.PostgresIntegrationTest;
+import ru.itmo.support.TestCities;
+
+/**
+ * Throughput of {@code POST /api/cities/batch} ({@link CityService#createBatch}, one transaction)
+ * against the same cities sent as separate {@link CityService#create} calls, one transaction each.
+ * The target of the batch endpoint is about 10x.
+ * Run with {@code mvn test -Dgroups=benchmark -DexcludedGroups= -Dtest=BatchCreateBenchmark}.
+ */
+@Tag("benchmark")
+class BatchCreateBenchmark extends PostgresIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchCreateBenchmark.class);
+
+    private static final int ROWS = 2_000;
+
+    @Autowired
+    private CityService cityService;
+
+    @Test
+    void singleCreatesVersusBatch() {
+        double ratio = Throughput.compare(log, ROWS,
+                "create loop", (label, rows) -> {
+                    for (CityDto dto : TestCities.distinct(label, rows)) {
+                        cityService.create(dto);
+                    }
+                },
+                "createBatch", (label, rows) -> cityService.createBatch(TestCities.distinct(label, rows)));
+
+        Throughput.assertNotSlower(ratio);
+    }
+}
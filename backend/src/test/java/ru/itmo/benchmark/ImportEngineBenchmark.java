@@ -0,0 +1,68 @@
+package ru.itmo.benchmark;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.itmo.dto.CityDto;
+import ru.itmo.service.CityService;
+import ru.itmo.support.PostgresIntegrationTest;
+import ru.itmo.support.TestCities;
+
+import java.util.List;
+
+/**
+ * Throughput of the two single-transaction import engines for 10k cities: batched JPA inserts in
+ * import-sized chunks ({@code import.engine=jpa}) and COPY into the stage followed by
+ * INSERT ... SELECT ({@code import.engine=copy}).
+ * Run with {@code mvn test -Dgroups=benchmark -DexcludedGroups= -Dtest=ImportEngineBenchmark}.
+ */
+@Tag("benchmark")
+class ImportEngineBenchmark extends PostgresIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportEngineBenchmark.class);
+
+    private static final int ROWS = 10_000;
+    private static final int CHUNK = 500;
+
+    @Autowired
+    private CityService cityService;
+
+    @Autowired
+    private PlatformTransactionManager txManager;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Test
+    void jpaChunksVersusCopy() {
+        double ratio = Throughput.compare(log, ROWS,
+                "jpa", this::jpa,
+                "copy", this::copy);
+
+        Throughput.assertNotSlower(ratio);
+    }
+
+    private void jpa(String namePrefix, int rows) {
+        List<CityDto> dtos = TestCities.distinct(namePrefix, rows);
+
+        new TransactionTemplate(txManager).executeWithoutResult(status -> {
+            for (int base = 0; base < rows; base += CHUNK) {
+                cityService.createChunkForImport(dtos.subList(base, Math.min(base + CHUNK, rows)), base, null);
+                em.clear();
+            }
+        });
+    }
+
+    private void copy(String namePrefix, int rows) {
+        List<CityDto> dtos = TestCities.distinct(namePrefix, rows);
+
+        new TransactionTemplate(txManager).executeWithoutResult(status ->
+                cityService.copyForImport(sink -> dtos.forEach(sink)));
+    }
+}
@@ -0,0 +1,64 @@
+package ru.itmo.benchmark;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.itmo.dto.CityDto;
+import ru.itmo.service.CityService;
+import ru.itmo.support.PostgresIntegrationTest;
+import ru.itmo.support.TestCities;
+
+import java.util.List;
+
+/**
+ * Throughput of the JPA import path for 10k cities with JDBC batching off (one INSERT round trip
+ * per row, what IDENTITY ids forced) and on (pooled sequence ids, {@code db.jdbc.batchSize}).
+ * Run with {@code mvn test -Dgroups=benchmark -DexcludedGroups= -Dtest=InsertBatchingBenchmark}.
+ */
+@Tag("benchmark")
+class InsertBatchingBenchmark extends PostgresIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(InsertBatchingBenchmark.class);
+
+    private static final int ROWS = 10_000;
+    private static final int CHUNK = 500;
+
+    @Autowired
+    private CityService cityService;
+
+    @Autowired
+    private PlatformTransactionManager txManager;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Test
+    void unbatchedVersusBatchedInserts() {
+        double ratio = Throughput.compare(log, ROWS,
+                "unbatched", (label, rows) -> insert(label, rows, 1),
+                "batched", (label, rows) -> insert(label, rows, null));
+
+        Throughput.assertNotSlower(ratio);
+    }
+
+    /** Inserts {@code rows} new cities in import-sized chunks. */
+    private void insert(String namePrefix, int rows, Integer jdbcBatchSize) {
+        List<CityDto> dtos = TestCities.distinct(namePrefix, rows);
+
+        new TransactionTemplate(txManager).executeWithoutResult(status -> {
+            // null keeps hibernate.jdbc.batch_size from JpaConfig
+            em.unwrap(Session.class).setJdbcBatchSize(jdbcBatchSize);
+            for (int base = 0; base < rows; base += CHUNK) {
+                cityService.createChunkForImport(dtos.subList(base, Math.min(base + CHUNK, rows)), base, null);
+                em.clear();
+            }
+        });
+    }
+}
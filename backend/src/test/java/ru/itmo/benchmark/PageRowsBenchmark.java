@@ -0,0 +1,98 @@
+package ru.itmo.benchmark;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.itmo.dto.CityDto;
+import ru.itmo.repository.CityRepository;
+import ru.itmo.repository.CityRow;
+import ru.itmo.service.CityService;
+import ru.itmo.support.PostgresIntegrationTest;
+import ru.itmo.support.TestCities;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Cost of a 1,000-row page of cities read as entities and mapped to DTOs (the old
+ * {@code findSlice} path) and selected straight into {@link CityRow} ({@code findRows}, what
+ * {@link CityService#page} uses now): rows per second and bytes allocated per row.
+ * Run with {@code mvn test -Dgroups=benchmark -DexcludedGroups= -Dtest=PageRowsBenchmark}.
+ */
+@Tag("benchmark")
+class PageRowsBenchmark extends PostgresIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(PageRowsBenchmark.class);
+
+    private static final int PAGE = 1_000;
+    private static final int ROWS = 50 * PAGE;
+    private static final Sort BY_ID = Sort.by("id");
+
+    @Autowired
+    private CityService cityService;
+
+    @Autowired
+    private CityRepository cityRepo;
+
+    @Autowired
+    private PlatformTransactionManager txManager;
+
+    @BeforeEach
+    void seed() {
+        long missing = PAGE - cityRepo.count();
+        if (missing > 0) {
+            cityService.createBatch(TestCities.distinct("Page rows", (int) missing));
+        }
+    }
+
+    @Test
+    void entityPagesVersusRowPages() {
+        log.info("bytes allocated per row: entities {}, rows {}",
+                allocatedPerRow(this::entityPage), allocatedPerRow(this::rowPage));
+
+        double ratio = Throughput.compare(log, ROWS,
+                "entities", (label, rows) -> readPages(rows, this::entityPage),
+                "rows", (label, rows) -> readPages(rows, this::rowPage));
+
+        Throughput.assertNotSlower(ratio);
+    }
+
+    private List<CityDto> entityPage() {
+        return cityRepo.findSlice(null, BY_ID, 0, PAGE).stream().map(CityDto::fromEntity).toList();
+    }
+
+    private List<CityDto> rowPage() {
+        return cityRepo.findRows(null, BY_ID, 0, PAGE).stream().map(CityRow::toDto).toList();
+    }
+
+    /** Reads {@code rows / PAGE} pages, each in its own read-only transaction like a page request. */
+    private void readPages(int rows, Supplier<List<CityDto>> page) {
+        TransactionTemplate tx = readOnly();
+        for (int read = 0; read < rows; read += PAGE) {
+            tx.execute(status -> page.get());
+        }
+    }
+
+    private long allocatedPerRow(Supplier<List<CityDto>> page) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        TransactionTemplate tx = readOnly();
+        tx.execute(status -> page.get());
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        tx.execute(status -> page.get());
+        return (threads.getCurrentThreadAllocatedBytes() - before) / PAGE;
+    }
+
+    private TransactionTemplate readOnly() {
+        TransactionTemplate tx = new TransactionTemplate(txManager);
+        tx.setReadOnly(true);
+        return tx;
+    }
+}
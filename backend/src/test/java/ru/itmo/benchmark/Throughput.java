@@ -0,0 +1,60 @@
+package ru.itmo.benchmark;
+
+import org.slf4j.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Best-of-{@value #ROUNDS} rows per second of a baseline path and the path meant to replace it,
+ * timed in alternating rounds after an untimed warm-up of each.
+ */
+final class Throughput {
+
+    static final int ROUNDS = 3;
+
+    private static final int WARM_UP_ROWS = 1_000;
+
+    // wide enough for a noisy shared machine; falling back to the slow path costs far more
+    private static final double MIN_RATIO = 0.5;
+
+    @FunctionalInterface
+    interface Workload {
+        /** Processes {@code rows} rows; {@code label} differs on every call, e.g. to name new cities. */
+        void run(String label, int rows);
+    }
+
+    private Throughput() {}
+
+    /** Logs both rates and returns the candidate's rows/s divided by the baseline's. */
+    static double compare(Logger log, int rows,
+                          String baselineName, Workload baseline,
+                          String candidateName, Workload candidate) {
+        int warmUp = Math.min(rows, WARM_UP_ROWS);
+        baseline.run("Warm-up " + baselineName, warmUp);
+        candidate.run("Warm-up " + candidateName, warmUp);
+
+        double baselineRate = 0;
+        double candidateRate = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            baselineRate = Math.max(baselineRate, rate(baseline, baselineName + " " + round, rows));
+            candidateRate = Math.max(candidateRate, rate(candidate, candidateName + " " + round, rows));
+        }
+
+        double ratio = candidateRate / baselineRate;
+        log.info("{} rows, best of {}: {} {} rows/s, {} {} rows/s ({}x)",
+                rows, ROUNDS, baselineName, Math.round(baselineRate), candidateName, Math.round(candidateRate),
+                String.format("%.1f", ratio));
+        return ratio;
+    }
+
+    /** Fails when the candidate came out clearly slower than the baseline. */
+    static void assertNotSlower(double ratio) {
+        assertTrue(ratio >= MIN_RATIO, () -> String.format("candidate runs at %.2fx of the baseline", ratio));
+    }
+
+    private static double rate(Workload workload, String label, int rows) {
+        long started = System.nanoTime();
+        workload.run(label, rows);
+        return rows / ((System.nanoTime() - started) / 1e9);
+    }
+}
@@ -0,0 +1,33 @@
+package ru.itmo.controller;
+
+import org.junit.jupiter.api.Test;
+import ru.itmo.exception.PreconditionFailedException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/** If-Match is compared strongly: only the quoted version tag the server sends is accepted. */
+class ETagsTest {
+
+    @Test
+    void strongTagIsTheExpectedVersion() {
+        assertEquals(7L, ETags.parseIfMatch("\"7\""));
+    }
+
+    @Test
+    void absentOrAnyTagExpectsNoVersion() {
+        assertNull(ETags.parseIfMatch(null));
+        assertNull(ETags.parseIfMatch("*"));
+    }
+
+    @Test
+    void weakTagFailsThePrecondition() {
+        assertThrows(PreconditionFailedException.class, () -> ETags.parseIfMatch("W/\"7\""));
+    }
+
+    @Test
+    void malformedTagIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> ETags.parseIfMatch("\"seven\""));
+    }
+}
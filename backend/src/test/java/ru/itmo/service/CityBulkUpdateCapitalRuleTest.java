@@ -0,0 +1,84 @@
+package ru.itmo.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import ru.itmo.dto.CityBulkUpdateRequestDto;
+import ru.itmo.dto.CityBulkUpdateResultDto;
+import ru.itmo.dto.HumanDto;
+import ru.itmo.exception.BusinessRuleViolationException;
+import ru.itmo.support.PostgresIntegrationTest;
+import ru.itmo.support.TestCities;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** A bulk update is checked against the same capital rule as a single-city update, in SQL. */
+class CityBulkUpdateCapitalRuleTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private CityService cityService;
+
+    @Autowired
+    private HumanService humanService;
+
+    @Test
+    void capitalWithoutGovernorIsRejected() {
+        Long city = newCity();
+
+        CityBulkUpdateRequestDto rq = capital(city);
+        rq.setClearGovernor(true);
+
+        assertViolation("CAPITAL_REQUIRES_GOVERNOR", rq);
+        assertFalse(cityService.get(city).isCapital());
+    }
+
+    @Test
+    void capitalWithShortGovernorIsRejected() {
+        Long city = newCity();
+
+        CityBulkUpdateRequestDto rq = capital(city);
+        rq.setGovernorId(newHuman(120f));
+
+        assertViolation("CAPITAL_GOVERNOR_TOO_SHORT", rq);
+        assertFalse(cityService.get(city).isCapital());
+    }
+
+    @Test
+    void capitalWithTallEnoughGovernorIsUpdated() {
+        Long city = newCity();
+
+        CityBulkUpdateRequestDto rq = capital(city);
+        rq.setGovernorId(newHuman(150f));
+
+        CityBulkUpdateResultDto out = cityService.updateBulk(rq);
+        assertEquals(List.of(city), out.getCityIds());
+        assertTrue(cityService.get(city).isCapital());
+    }
+
+    private void assertViolation(String code, CityBulkUpdateRequestDto rq) {
+        BusinessRuleViolationException e = assertThrows(BusinessRuleViolationException.class, () -> cityService.updateBulk(rq));
+        assertEquals(code, e.getCode());
+    }
+
+    private static CityBulkUpdateRequestDto capital(Long city) {
+        CityBulkUpdateRequestDto rq = new CityBulkUpdateRequestDto();
+        rq.setIds(List.of(city));
+        rq.setCapital(true);
+        return rq;
+    }
+
+    private Long newCity() {
+        int seed = (int) (System.nanoTime() % 100_000);
+        return cityService.create(TestCities.city("Bulk capital " + System.nanoTime(), seed)).getId();
+    }
+
+    private Long newHuman(float height) {
+        HumanDto human = new HumanDto();
+        human.setHeight(height);
+        return humanService.create(human).getId();
+    }
+}
@@ -0,0 +1,68 @@
+package ru.itmo.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.itmo.dto.CityDto;
+import ru.itmo.support.PostgresIntegrationTest;
+import ru.itmo.support.TestCities;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The COPY engine reserves ids in blocks of the sequences' increment, one nextval per 50 rows,
+ * instead of burning a whole block on every row.
+ */
+class CityCopyIdBlocksTest extends PostgresIntegrationTest {
+
+    private static final int ROWS = 120;
+
+    @Autowired
+    private CityService cityService;
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    @Autowired
+    private PlatformTransactionManager txManager;
+
+    @Test
+    void copiedRowsFillWholeIdBlocks() {
+        String prefix = "Id blocks " + System.nanoTime();
+        List<CityDto> dtos = TestCities.distinct(prefix, ROWS);
+
+        new TransactionTemplate(txManager).executeWithoutResult(status ->
+                cityService.copyForImport(sink -> dtos.forEach(sink)));
+
+        int blocks = (ROWS + 49) / 50;
+        assertBlocks(prefix, "c.id", blocks);
+        assertBlocks(prefix, "c.governor_id", blocks);
+    }
+
+    private void assertBlocks(String prefix, String column, int expectedBlocks) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            List<?> ids = em.createNativeQuery("SELECT " + column + " FROM city c WHERE c.name LIKE ?1")
+                    .setParameter(1, prefix + " %")
+                    .getResultList();
+            Set<Long> distinct = new HashSet<>();
+            Set<Long> blocks = new HashSet<>();
+            for (Object id : ids) {
+                long value = ((Number) id).longValue();
+                distinct.add(value);
+                blocks.add((value - 1) / 50);
+            }
+            assertEquals(ROWS, distinct.size(), column);
+            assertEquals(expectedBlocks, blocks.size(), column);
+        } finally {
+            em.close();
+        }
+    }
+}
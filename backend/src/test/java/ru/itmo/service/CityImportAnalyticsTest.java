@@ -0,0 +1,73 @@
+package ru.itmo.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.itmo.analytics.CityAnalyticsSnapshot;
+import ru.itmo.dto.CityDto;
+import ru.itmo.support.PostgresIntegrationTest;
+import ru.itmo.support.TestCities;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/** Imported cities reach the analytics snapshot on commit, without a reload, and never on rollback. */
+class CityImportAnalyticsTest extends PostgresIntegrationTest {
+
+    private static final int ROWS = 30;
+
+    @Autowired
+    private CityService cityService;
+
+    @Autowired
+    private CityAnalyticsSnapshot analytics;
+
+    @Autowired
+    private PlatformTransactionManager txManager;
+
+    @BeforeEach
+    void seedSnapshot() {
+        analytics.rebuild();
+    }
+
+    @Test
+    void chunkRowsAreAddedOnCommit() {
+        String prefix = "Analytics chunk " + System.nanoTime();
+        List<CityDto> dtos = TestCities.distinct(prefix, ROWS);
+
+        new TransactionTemplate(txManager).executeWithoutResult(status -> {
+            cityService.createChunkForImport(dtos.subList(0, ROWS / 2), 0, null);
+            cityService.createChunkForImport(dtos.subList(ROWS / 2, ROWS), ROWS / 2, null);
+        });
+
+        assertEquals(ROWS, analytics.namesByPrefix(prefix, null, ROWS + 1).size());
+    }
+
+    @Test
+    void copiedRowsAreAddedOnCommit() {
+        String prefix = "Analytics copy " + System.nanoTime();
+        List<CityDto> dtos = TestCities.distinct(prefix, ROWS);
+
+        new TransactionTemplate(txManager).executeWithoutResult(status ->
+                cityService.copyForImport(sink -> dtos.forEach(sink)));
+
+        assertEquals(ROWS, analytics.namesByPrefix(prefix, null, ROWS + 1).size());
+    }
+
+    @Test
+    void rolledBackChunkIsNotAdded() {
+        String prefix = "Analytics rollback " + System.nanoTime();
+        List<CityDto> dtos = TestCities.distinct(prefix, ROWS);
+
+        assertThrows(IllegalStateException.class, () -> new TransactionTemplate(txManager).executeWithoutResult(status -> {
+            cityService.createChunkForImport(dtos, 0, null);
+            throw new IllegalStateException("rollback");
+        }));
+
+        assertEquals(0, analytics.namesByPrefix(prefix, null, ROWS + 1).size());
+    }
+}
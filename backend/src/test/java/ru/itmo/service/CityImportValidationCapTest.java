@@ -0,0 +1,131 @@
+package ru.itmo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import ru.itmo.domain.ImportOperation;
+import ru.itmo.domain.ImportStatus;
+import ru.itmo.dto.CityDto;
+import ru.itmo.dto.MinioStoredFileDto;
+import ru.itmo.storage.ImportFileStorageService;
+import ru.itmo.storage.StoredImportStream;
+import ru.itmo.support.PostgresIntegrationTest;
+import ru.itmo.support.TestCities;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * With {@code import.validation.maxErrors} validation stops after the chunk that reaches the cap,
+ * and the result is marked truncated only when records were actually left unchecked.
+ */
+@ContextConfiguration(classes = CityImportValidationCapTest.Config.class)
+@TestPropertySource(properties = {"import.chunkSize=2", "import.validation.maxErrors=1"})
+class CityImportValidationCapTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private CityImportService importService;
+
+    @Autowired
+    private ImportOperationService ops;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @TempDir
+    private Path dir;
+
+    @Test
+    void capReachedInTheLastChunkIsNotTruncated() throws Exception {
+        JsonNode errors = rejectedFile("last-chunk.json", 2);
+
+        assertFalse(errors.get("truncated").asBoolean());
+    }
+
+    @Test
+    void capReachedBeforeTheLastChunkIsTruncated() throws Exception {
+        JsonNode errors = rejectedFile("early-chunk.json", 4);
+
+        assertTrue(errors.get("truncated").asBoolean());
+        errors.get("items").forEach(item -> assertTrue(item.get("index").asInt() < 2));
+    }
+
+    /** Imports {@code records} cities, the first of them invalid, and returns the stored validation errors. */
+    private JsonNode rejectedFile(String name, int records) throws Exception {
+        List<CityDto> cities = TestCities.distinct("Validation cap " + System.nanoTime(), records);
+        cities.get(0).setName("");
+        Path file = dir.resolve(name);
+        objectMapper.writeValue(file.toFile(), cities);
+
+        ImportOperation op = awaitFinished(importService.submitImport(file, name, null, false).getId());
+        assertEquals(ImportStatus.FAILED, op.getStatus());
+        return objectMapper.readTree(op.getValidationErrors());
+    }
+
+    private ImportOperation awaitFinished(Long id) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            ImportOperation op = ops.getRequired(id);
+            if (op.getFinishedAt() != null) return op;
+            Thread.sleep(100);
+        }
+        return fail("Import operation id=" + id + " did not finish");
+    }
+
+    @Configuration
+    @Import({CityImportService.class, ImportJobQueue.class, InfraFailureSimulationService.class})
+    static class Config {
+
+        /** Validation runs before the file is stored, so only the bucket name is ever asked for. */
+        @Bean
+        ImportFileStorageService importFileStorageService() {
+            return new ImportFileStorageService() {
+                @Override
+                public String getBucketName() {
+                    return "imports";
+                }
+
+                @Override
+                public String prepare(String txId, InputStream content, long sizeBytes, String originalFilename) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public String commitPrepared(String txId, String stagingKey, String originalFilename) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public void rollbackPreparedQuietly(String stagingKey) {
+                }
+
+                @Override
+                public void rollbackCommittedQuietly(String finalKey) {
+                }
+
+                @Override
+                public StoredImportStream openDownload(String finalKey) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public List<MinioStoredFileDto> listCommittedFiles() {
+                    return List.of();
+                }
+            };
+        }
+    }
+}
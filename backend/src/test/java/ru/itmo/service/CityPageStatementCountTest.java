@@ -0,0 +1,83 @@
+package ru.itmo.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import ru.itmo.dto.CityDto;
+import ru.itmo.dto.CityPageDto;
+import ru.itmo.dto.PageRequestDto;
+import ru.itmo.support.PostgresIntegrationTest;
+import ru.itmo.support.TestCities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * A page of cities must cost a fixed number of statements however many rows it holds:
+ * coordinates and governors come with the page, not one lazy load per row.
+ */
+class CityPageStatementCountTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private CityService cityService;
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    @BeforeEach
+    void seed() {
+        if (cityService.page(new PageRequestDto()).getTotalElements() < 100) {
+            cityService.createBatch(TestCities.distinct("Statement count", 120));
+        }
+    }
+
+    @Test
+    void offsetPageRunsRowsAndCountQueriesOnly() {
+        assertEquals(2, statementsFor(page(10, null)));
+        assertEquals(2, statementsFor(page(100, null)));
+    }
+
+    @Test
+    void offsetPageWithoutCountRunsOneQuery() {
+        assertEquals(1, statementsFor(page(10, "none")));
+        assertEquals(1, statementsFor(page(100, "none")));
+    }
+
+    @Test
+    void keysetPageRunsOneQuery() {
+        PageRequestDto small = page(10, null);
+        small.setKeyset(true);
+        PageRequestDto large = page(100, null);
+        large.setKeyset(true);
+
+        assertEquals(1, statementsFor(small));
+        assertEquals(1, statementsFor(large));
+    }
+
+    private static PageRequestDto page(int size, String countMode) {
+        PageRequestDto rq = new PageRequestDto();
+        rq.setSize(size);
+        rq.setCountMode(countMode);
+        return rq;
+    }
+
+    /** Statements prepared for one page with a cold L2 cache, the worst case for lazy loading. */
+    private long statementsFor(PageRequestDto rq) {
+        Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+        emf.getCache().evictAll();
+        stats.setStatisticsEnabled(true);
+        stats.clear();
+
+        CityPageDto<CityDto> page = cityService.page(rq);
+
+        long statements = stats.getPrepareStatementCount();
+        assertEquals(rq.getSize(), page.getContent().size());
+        page.getContent().forEach(c -> {
+            assertEquals(c.getCoordinatesId(), c.getCoordinates().getId());
+            assertEquals(c.getGovernorId(), c.getGovernor().getId());
+        });
+        return statements;
+    }
+}
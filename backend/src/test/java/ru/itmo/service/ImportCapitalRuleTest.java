@@ -0,0 +1,97 @@
+package ru.itmo.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.itmo.dto.CityDto;
+import ru.itmo.dto.HumanDto;
+import ru.itmo.exception.ImportValidationException;
+import ru.itmo.support.PostgresIntegrationTest;
+import ru.itmo.support.TestCities;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The capital rule of an import is checked on the validation pass, referenced governors against the
+ * heights of the resolve query, so inserting the chunks never initialises a governor proxy.
+ */
+class ImportCapitalRuleTest extends PostgresIntegrationTest {
+
+    private static final int CAPITALS = 20;
+
+    @Autowired
+    private CityService cityService;
+
+    @Autowired
+    private HumanService humanService;
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    @Autowired
+    private PlatformTransactionManager txManager;
+
+    @Test
+    void capitalViolationsAreReportedOnTheValidationPass() {
+        List<CityDto> dtos = TestCities.distinct("Capital rule " + System.nanoTime(), 4);
+        dtos.forEach(d -> d.setCapital(true));
+        referToGovernor(dtos.get(0), newHuman(160f));
+        referToGovernor(dtos.get(1), newHuman(120f));
+        dtos.get(2).setGovernor(null);
+        dtos.get(3).getGovernor().setHeight(120f);
+
+        ImportReferenceIndex refs = new ImportReferenceIndex();
+        List<ImportValidationException.ItemError> errors = new ArrayList<>();
+        refs.collect(dtos, 0, errors);
+        errors.addAll(cityService.resolveImportReferences(refs));
+
+        Map<Integer, String> byIndex = new TreeMap<>();
+        errors.forEach(e -> byIndex.put(e.getIndex(), e.getField()));
+        assertEquals(Map.of(1, "capital", 2, "capital", 3, "capital"), byIndex);
+    }
+
+    @Test
+    void resolvedChunkInsertsCapitalsWithoutLoadingGovernors() {
+        List<CityDto> dtos = TestCities.distinct("Capital insert " + System.nanoTime(), CAPITALS);
+        for (CityDto dto : dtos) {
+            dto.setCapital(true);
+            referToGovernor(dto, newHuman(170f));
+        }
+
+        ImportReferenceIndex refs = new ImportReferenceIndex();
+        List<ImportValidationException.ItemError> errors = new ArrayList<>();
+        refs.collect(dtos, 0, errors);
+        errors.addAll(cityService.resolveImportReferences(refs));
+        assertTrue(errors.isEmpty());
+
+        Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+        emf.getCache().evictAll();
+        stats.setStatisticsEnabled(true);
+        stats.clear();
+
+        new TransactionTemplate(txManager).executeWithoutResult(status -> cityService.createChunkForImport(dtos, 0, refs));
+
+        assertEquals(0, stats.getEntityFetchCount());
+    }
+
+    private static void referToGovernor(CityDto dto, Long humanId) {
+        dto.setGovernor(null);
+        dto.setGovernorId(humanId);
+    }
+
+    private Long newHuman(float height) {
+        HumanDto human = new HumanDto();
+        human.setHeight(height);
+        return humanService.create(human).getId();
+    }
+}
@@ -0,0 +1,76 @@
+package ru.itmo.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.env.MockEnvironment;
+import ru.itmo.domain.ImportOperation;
+import ru.itmo.domain.ImportStatus;
+import ru.itmo.support.PostgresIntegrationTest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Operations and spooled files left behind by a previous run are settled when the queue starts. */
+class ImportJobQueueRecoveryTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private ImportOperationService ops;
+
+    @TempDir
+    private Path spoolDir;
+
+    @Test
+    void settlesInterruptedOperationsAndEmptiesTheSpool() throws IOException {
+        Long validating = start(false);
+
+        Long chunkedWithFile = start(true);
+        ops.markFilePrepared(chunkedWithFile, "staging/b.json", 10);
+        ops.markFileCommitted(chunkedWithFile, "final/b.json");
+
+        Long rowsCommitted = start(false);
+        ops.markFilePrepared(rowsCommitted, "staging/c.json", 7);
+        ops.markFileCommitted(rowsCommitted, "final/c.json");
+        ops.markDbCommitted(rowsCommitted);
+
+        Long finished = start(false);
+        ops.markSuccess(finished, 3);
+
+        Path leftover = Files.createFile(spoolDir.resolve("import-1.json"));
+
+        ImportJobQueue queue = new ImportJobQueue(ops, new MockEnvironment().withProperty("import.spoolDir", spoolDir.toString()));
+        try {
+            queue.recoverOnStartup();
+        } finally {
+            queue.shutdown();
+        }
+
+        assertFalse(Files.exists(leftover));
+
+        ImportOperation a = ops.getRequired(validating);
+        assertEquals(ImportStatus.FAILED, a.getStatus());
+        assertFalse(a.isResumable());
+
+        ImportOperation b = ops.getRequired(chunkedWithFile);
+        assertEquals(ImportStatus.FAILED, b.getStatus());
+        assertTrue(b.isResumable());
+
+        ImportOperation c = ops.getRequired(rowsCommitted);
+        assertEquals(ImportStatus.SUCCESS, c.getStatus());
+        assertEquals(7, c.getAddedCount());
+
+        ImportOperation d = ops.getRequired(finished);
+        assertEquals(ImportStatus.SUCCESS, d.getStatus());
+        assertEquals(3, d.getAddedCount());
+    }
+
+    private Long start(boolean chunked) {
+        return ops.start(UUID.randomUUID().toString(), "import.json", "imports", chunked).getId();
+    }
+}
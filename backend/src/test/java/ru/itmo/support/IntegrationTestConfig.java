@@ -0,0 +1,66 @@
+package ru.itmo.support;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import ru.itmo.analytics.CityAnalyticsSnapshot;
+import ru.itmo.cache.CityCountCache;
+import ru.itmo.config.JpaConfig;
+import ru.itmo.config.TxConfig;
+import ru.itmo.lock.EntityStripedLocks;
+import ru.itmo.lock.StripedLockAspect;
+import ru.itmo.retry.ConflictRetryExecutor;
+import ru.itmo.retry.RetryOnConflictAspect;
+import ru.itmo.service.CityDtoValidator;
+import ru.itmo.service.CityJsonStreamReader;
+import ru.itmo.service.CityService;
+import ru.itmo.service.CoordinatesService;
+import ru.itmo.service.HumanService;
+import ru.itmo.service.ImportOperationService;
+import ru.itmo.websocket.WsEventPublisher;
+
+/**
+ * The persistence and service layer of the application without the web tier, MinIO
+ * and the import job queue. WebSocket events go to a channel nobody listens on.
+ */
+@Configuration
+@EnableAspectJAutoProxy
+@Import({
+        JpaConfig.class,
+        TxConfig.class,
+        CityService.class,
+        CoordinatesService.class,
+        HumanService.class,
+        ImportOperationService.class,
+        CityDtoValidator.class,
+        CityJsonStreamReader.class,
+        CityAnalyticsSnapshot.class,
+        CityCountCache.class,
+        ConflictRetryExecutor.class,
+        RetryOnConflictAspect.class,
+        EntityStripedLocks.class,
+        StripedLockAspect.class
+})
+public class IntegrationTestConfig {
+
+    @Bean
+    public WsEventPublisher wsEventPublisher() {
+        return new WsEventPublisher(new SimpMessagingTemplate(new ExecutorSubscribableChannel()));
+    }
+
+    @Bean
+    public ObjectMapper objectMapper() {
+        return new ObjectMapper().registerModule(new JavaTimeModule());
+    }
+
+    @Bean
+    public LocalValidatorFactoryBean validator() {
+        return new LocalValidatorFactoryBean();
+    }
+}
@@ -0,0 +1,28 @@
+package ru.itmo.support;
+
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.MountableFile;
+
+/**
+ * Base class for tests against a real PostgreSQL initialised from db/setup.sql. The container
+ * is shared by all subclasses; without a Docker daemon the tests are skipped, not failed.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringJUnitConfig(IntegrationTestConfig.class)
+public abstract class PostgresIntegrationTest {
+
+    protected static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withCopyFileToContainer(MountableFile.forHostPath("db/setup.sql"), "/docker-entrypoint-initdb.d/setup.sql");
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        POSTGRES.start();
+        registry.add("db.url", POSTGRES::getJdbcUrl);
+        registry.add("db.username", POSTGRES::getUsername);
+        registry.add("db.password", POSTGRES::getPassword);
+    }
+}
@@ -0,0 +1,44 @@
+package ru.itmo.support;
+
+import ru.itmo.dto.CityDto;
+import ru.itmo.dto.CoordinatesDto;
+import ru.itmo.dto.HumanDto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Valid, mutually distinct cities, each with its own inline coordinates and governor. */
+public final class TestCities {
+
+    private TestCities() {}
+
+    public static List<CityDto> distinct(String namePrefix, int count) {
+        List<CityDto> out = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            out.add(city(namePrefix + " " + i, i));
+        }
+        return out;
+    }
+
+    public static CityDto city(String name, int seed) {
+        CoordinatesDto coords = new CoordinatesDto();
+        coords.setX((float) (seed % 400));
+        coords.setY((float) seed);
+
+        HumanDto governor = new HumanDto();
+        governor.setHeight(150f + seed % 50);
+
+        CityDto dto = new CityDto();
+        dto.setName(name);
+        dto.setArea(1 + seed % 10_000);
+        dto.setPopulation(1L + seed);
+        dto.setCapital(false);
+        dto.setMetersAboveSeaLevel(seed % 3_000);
+        dto.setTelephoneCode(1 + seed % 100_000);
+        dto.setClimate("TUNDRA");
+        dto.setGovernment("DEMARCHY");
+        dto.setCoordinates(coords);
+        dto.setGovernor(governor);
+        return dto;
+    }
+}
@@ -1,5 +1,8 @@
 import api from "./client";
 
+// server-side maximum for /names-starting (CityService.NAME_SEARCH_MAX_LIMIT)
+const NAMES_PAGE_LIMIT = 500;
+
 
 export const CitiesAnalyticsApi = {
   averageTelephoneCode: async () => {
@@ -7,11 +10,24 @@ export const CitiesAnalyticsApi = {
     return data; 
   },
 
+  // one page ordered by name; nextCursor is null on the last page
+  namesStartingWithPage: async (prefix, { cursor, limit = NAMES_PAGE_LIMIT } = {}) => {
+    const params = { prefix, limit };
+    if (cursor) params.cursor = cursor;
+    const { data, headers } = await api.get("/api/cities/names-starting", { params });
+    return { items: Array.isArray(data) ? data : [], nextCursor: headers["x-next-cursor"] || null };
+  },
+
+  // the endpoint is paged (X-Next-Cursor), so follow the cursor to collect every match
   namesStartingWith: async (prefix) => {
-    const { data } = await api.get("/api/cities/names-starting", {
-      params: { prefix },
-    });
-    return data; 
+    const all = [];
+    let cursor = null;
+    do {
+      const page = await CitiesAnalyticsApi.namesStartingWithPage(prefix, { cursor });
+      all.push(...page.items);
+      cursor = page.nextCursor;
+    } while (cursor);
+    return all;
   },
 
   uniqueMetersAboveSeaLevel: async () => {
@@ -9,6 +9,16 @@ export const ImportsApi = {
     const { data } = await api.get(`/api/imports?${params.toString()}`);
     return data;
   },
+
+  get: async (id) => {
+    const { data } = await api.get(`/api/imports/${id}`);
+    return data;
+  },
+
+  resume: async (id) => {
+    const { data } = await api.post(`/api/imports/${id}/resume`);
+    return data;
+  },
 };
 
 export default ImportsApi;
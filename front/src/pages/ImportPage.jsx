@@ -7,6 +7,10 @@ import { createStomp } from "../realtime/bus";
 const CLIMATES = ["RAIN_FOREST", "HUMIDSUBTROPICAL", "TUNDRA"];
 const API_BASE = process.env.REACT_APP_API_BASE || "";
 
+// imports are queued on the server; the page polls GET /api/imports/{id} until one of these
+const IMPORT_DONE_STATUSES = ["SUCCESS", "FAILED", "COMPENSATED"];
+const IMPORT_POLL_MS = 1000;
+
 const GOVERNMENTS = [
   "DEMARCHY",
   "KLEPTOCRACY",
@@ -27,6 +31,16 @@ export default function ImportPage() {
   const [uploading, setUploading] = React.useState(false);
   const [uploadResult, setUploadResult] = React.useState(null);
   const [uploadError, setUploadError] = React.useState(null);
+  const [pendingOp, setPendingOp] = React.useState(null);
+  const [resumingId, setResumingId] = React.useState(null);
+
+  const mountedRef = React.useRef(true);
+  React.useEffect(() => {
+    mountedRef.current = true;
+    return () => {
+      mountedRef.current = false;
+    };
+  }, []);
 
   const [history, setHistory] = React.useState([]);
   const [histLoading, setHistLoading] = React.useState(false);
@@ -231,6 +245,35 @@ export default function ImportPage() {
     }
   };
 
+  const waitForImport = React.useCallback(async (submitted) => {
+    let op = submitted;
+    setPendingOp(op);
+    while (mountedRef.current && !IMPORT_DONE_STATUSES.includes(op?.status)) {
+      await new Promise((resolve) => setTimeout(resolve, IMPORT_POLL_MS));
+      if (!mountedRef.current) break;
+      op = await ImportsApi.get(submitted.id);
+      setPendingOp(op);
+    }
+    setPendingOp(null);
+    return op;
+  }, []);
+
+  const showImportOutcome = React.useCallback((op, validationMessage, errorMessage) => {
+    if (op?.status === "SUCCESS") {
+      setUploadResult({ created: op.addedCount ?? 0 });
+    } else if (op?.validationErrors?.items) {
+      setUploadError({
+        type: "validation_failed",
+        message: validationMessage,
+        items: op.validationErrors.items,
+        total: op.validationErrors.total,
+        truncated: op.validationErrors.truncated,
+      });
+    } else if (op?.status) {
+      setUploadError({ type: "error", message: op.errorMessage || errorMessage });
+    }
+  }, []);
+
   const reimportFromMinio = async (f) => {
     if (!f?.objectKey) return;
     setReimportingKey(f.objectKey);
@@ -238,24 +281,17 @@ export default function ImportPage() {
     setUploadError(null);
     setAdminActionMsg("");
     try {
-      const resp = await AdminApi.reimportMinioFile(f.objectKey);
-      setUploadResult(resp);
-      setAdminActionMsg(`Повторный импорт выполнен: ${f.fileName || f.objectKey}`);
+      const op = await waitForImport(await AdminApi.reimportMinioFile(f.objectKey));
+      showImportOutcome(op, "Повторный импорт отклонён из-за ошибок валидации", "Ошибка повторного импорта");
+      if (op?.status === "SUCCESS") {
+        setAdminActionMsg(`Повторный импорт выполнен: ${f.fileName || f.objectKey}`);
+      }
       await Promise.allSettled([refreshHistory(), refreshMinioFiles(), refreshInfra()]);
     } catch (e) {
-      const resp = e?.response?.data;
-      if (resp?.error === "validation_failed" && resp?.details?.items) {
-        setUploadError({
-          type: "validation_failed",
-          message: resp?.message || "Повторный импорт отклонён из-за ошибок валидации",
-          items: resp.details.items,
-        });
-      } else {
-        setUploadError({
-          type: "error",
-          message: extractApiMessage(e) || "Ошибка повторного импорта",
-        });
-      }
+      setUploadError({
+        type: "error",
+        message: extractApiMessage(e) || "Ошибка повторного импорта",
+      });
     } finally {
       setReimportingKey("");
     }
@@ -267,29 +303,39 @@ export default function ImportPage() {
     setUploadError(null);
 
     try {
-      const resp = await CitiesApi.importJson(file);
-      setUploadResult(resp);
+      const op = await waitForImport(await CitiesApi.importJson(file));
+      showImportOutcome(op, "Импорт отклонён из-за ошибок валидации", "Ошибка импорта");
     } catch (e) {
-      const resp = e?.response?.data;
-      if (resp?.error === "validation_failed" && resp?.details?.items) {
-        setUploadError({
-          type: "validation_failed",
-          message: resp?.message || "Импорт отклонён из-за ошибок валидации",
-          items: resp.details.items,
-        });
-      } else {
-        setUploadError({
-          type: "error",
-          message: extractApiMessage(e) || "Ошибка импорта",
-        });
-      }
+      setUploadError({
+        type: "error",
+        message: extractApiMessage(e) || "Ошибка импорта",
+      });
     } finally {
       refreshHistory();
       setUploading(false);
     }
   };
 
-  const canUpload = !!file && !parseError && validationErrors.length === 0 && !uploading;
+  const resumeImport = async (id) => {
+    setResumingId(id);
+    setUploadResult(null);
+    setUploadError(null);
+
+    try {
+      const op = await waitForImport(await ImportsApi.resume(id));
+      showImportOutcome(op, "Импорт отклонён из-за ошибок валидации", "Ошибка продолжения импорта");
+    } catch (e) {
+      setUploadError({
+        type: "error",
+        message: extractApiMessage(e) || "Ошибка продолжения импорта",
+      });
+    } finally {
+      refreshHistory();
+      setResumingId(null);
+    }
+  };
+
+  const canUpload = !!file && !parseError && validationErrors.length === 0 && !uploading && !pendingOp;
 
   const isFirst = page <= 0;
   const isLast = totalPages === 0 || page + 1 >= totalPages;
@@ -419,13 +465,20 @@ export default function ImportPage() {
           </div>
         )}
 
+        {pendingOp && (
+          <div style={{ ...banner, ...bannerWarn }}>
+            <div style={{ fontWeight: 600 }}>Импорт id={pendingOp.id} выполняется</div>
+            <div>
+              Статус: <span style={statusPill(pendingOp.status)}>{pendingOp.status}</span>
+              {pendingOp.totalCount != null && ` • обработано ${pendingOp.committedOffset ?? 0} из ${pendingOp.totalCount}`}
+            </div>
+          </div>
+        )}
+
         {uploadResult && (
           <div style={{ ...banner, ...bannerOk }}>
             <div style={{ fontWeight: 600 }}>Импорт завершён успешно</div>
             <div>Создано объектов: {uploadResult.created}</div>
-            {Array.isArray(uploadResult.cityIds) && uploadResult.cityIds.length > 0 && (
-              <div style={{ marginTop: 6, fontSize: 13 }}>IDs: {uploadResult.cityIds.join(", ")}</div>
-            )}
           </div>
         )}
 
@@ -433,6 +486,14 @@ export default function ImportPage() {
           <div style={{ ...banner, ...bannerError }}>
             <div style={{ fontWeight: 600 }}>Импорт отклонён сервером (валидация)</div>
             <div style={{ marginTop: 6 }}>{uploadError.message}</div>
+            {uploadError.total > uploadError.items.length && (
+              <div style={{ marginTop: 6, fontSize: 13 }}>
+                Показаны первые {uploadError.items.length} из {uploadError.total} ошибок
+              </div>
+            )}
+            {uploadError.truncated && (
+              <div style={{ marginTop: 6, fontSize: 13 }}>Проверка остановлена досрочно: ошибок в файле может быть больше</div>
+            )}
             <div style={{ marginTop: 8, maxHeight: 240, overflow: "auto" }}>{renderServerItemErrors(uploadError.items)}</div>
           </div>
         )}
@@ -493,6 +554,7 @@ export default function ImportPage() {
                 <TH>Начало</TH>
                 <TH>Окончание</TH>
                 <TH>Файл</TH>
+                <TH>Действия</TH>
               </tr>
             </thead>
             <tbody>
@@ -516,18 +578,27 @@ export default function ImportPage() {
                       op.sourceFilename || "—"
                     )}
                   </TD>
+                  <TD noEllipsis>
+                    {op.resumable ? (
+                      <button onClick={() => resumeImport(op.id)} disabled={!!pendingOp || resumingId != null}>
+                        {resumingId === op.id ? "Продолжение..." : "Продолжить"}
+                      </button>
+                    ) : (
+                      "—"
+                    )}
+                  </TD>
                 </tr>
               ))}
               {!histLoading && history.length === 0 && (
                 <tr>
-                  <td style={tdEmpty} colSpan={6}>
+                  <td style={tdEmpty} colSpan={7}>
                     История пуста
                   </td>
                 </tr>
               )}
               {histLoading && (
                 <tr>
-                  <td style={tdEmpty} colSpan={6}>
+                  <td style={tdEmpty} colSpan={7}>
                     Загрузка…
                   </td>
                 </tr>